@@ -0,0 +1,91 @@
+#!/bin/bash
+
+# Smoke test for the native executable (mvn -Pnative native:compile -DskipTests)
+#
+# Starts the binary against the database configured by DB_HOST/DB_PORT/DB_NAME/DB_USERNAME/DB_PASSWORD
+# (e.g. the postgres service from docker/docker-compose.yml), drives the main endpoints once and
+# reports startup time and resident memory. Anything that native-image left out, a missing
+# reflection hint, proxy or resource, shows up here as a failed request or a failed start.
+#
+# Usage: ./native-smoke-test.sh [path-to-binary]
+
+BINARY="${1:-target/mybillbook}"
+PORT="${SMOKE_PORT:-8089}"
+BASE_URL="http://localhost:${PORT}"
+LOG_FILE="target/native-smoke.log"
+FAILURES=0
+
+if [ ! -x "$BINARY" ]; then
+  echo "Native binary not found at $BINARY; build it with: mvn -Pnative native:compile -DskipTests"
+  exit 1
+fi
+
+# The background worker is off so the manual reconciliation run below finds the uploads unmatched
+SERVER_PORT="$PORT" SPRING_PROFILES_ACTIVE="${SPRING_PROFILES_ACTIVE:-prod}" RECONCILIATION_QUEUE_ENABLED=false \
+  OPENAI_API_KEY="${OPENAI_API_KEY:-sk-smoke-test}" "$BINARY" > "$LOG_FILE" 2>&1 &
+PID=$!
+trap 'kill $PID 2>/dev/null' EXIT
+
+for i in $(seq 1 600); do
+  if curl -sf "${BASE_URL}/actuator/health" > /dev/null; then
+    break
+  fi
+  if ! kill -0 $PID 2>/dev/null; then
+    echo "✗ Binary exited during startup, see $LOG_FILE"
+    exit 1
+  fi
+  sleep 0.1
+done
+
+echo "Startup: $(grep -o 'Started MybillbookApplication in [0-9.]* seconds' "$LOG_FILE" | grep -o '[0-9.]* seconds')"
+echo "RSS after startup: $(grep VmRSS /proc/$PID/status | awk '{print $2 / 1024 " MB"}')"
+echo ""
+
+# check <description> <expected-substring> <curl arguments...>
+check() {
+  local description="$1" expected="$2"
+  shift 2
+  local body
+  body=$(curl -s -w '\n%{http_code}' "$@")
+  if echo "$body" | grep -q -- "$expected"; then
+    echo "✓ $description"
+  else
+    echo "✗ $description: $(echo "$body" | tail -c 300)"
+    FAILURES=$((FAILURES + 1))
+  fi
+}
+
+MOBILE="9$(date +%s | tail -c 10)"
+USER_ID=$(curl -s -X POST "${BASE_URL}/api/auth/login" -H "Content-Type: application/json" \
+  -d "{\"mobileNumber\": \"${MOBILE}\", \"name\": \"Smoke Test\", \"businessName\": \"Smoke Test Store\"}" \
+  | grep -o '"userId":[0-9]*' | grep -o '[0-9]*')
+if [ -n "$USER_ID" ]; then echo "✓ Login"; else echo "✗ Login"; exit 1; fi
+
+# One payment settling both invoices of a customer is matched locally, without calling OpenAI
+check "Upload invoices" '"uploaded":2' -X POST "${BASE_URL}/api/invoices/upload?userId=${USER_ID}" \
+  -H "Content-Type: application/json" \
+  -d '[{"invoiceNumber": "SMOKE1", "customerName": "Smoke Traders", "totalAmount": 400,
+        "pendingAmount": 400, "invoiceDate": "2025-01-15", "status": "UNPAID"},
+       {"invoiceNumber": "SMOKE2", "customerName": "Smoke Traders", "totalAmount": 600,
+        "pendingAmount": 600, "invoiceDate": "2025-01-16", "status": "UNPAID"}]'
+check "Upload payments" '"uploaded":1' -X POST "${BASE_URL}/api/payments/upload?userId=${USER_ID}" \
+  -H "Content-Type: application/json" \
+  -d '[{"amount": 1000, "paymentDate": "2025-01-20", "paymentMode": "UPI",
+        "remark": "Smoke Traders full payment", "status": "UNRECONCILED"}]'
+check "List invoices" '"invoiceNumber":"SMOKE1"' "${BASE_URL}/api/invoices?userId=${USER_ID}"
+check "List payments" '"remark":"Smoke Traders full payment"' "${BASE_URL}/api/payments/all?userId=${USER_ID}"
+check "Run reconciliation" '"suggestionsGenerated":2' -X POST "${BASE_URL}/api/reconciliation/run?userId=${USER_ID}"
+check "List suggestions" '"invoiceNumber":"SMOKE1"' "${BASE_URL}/api/reconciliation/suggestions?userId=${USER_ID}"
+check "Summary report" '200$' "${BASE_URL}/api/reports/summary?userId=${USER_ID}"
+check "Export invoices as JSON" '"invoiceNumber":"SMOKE1"' "${BASE_URL}/api/export/invoices?userId=${USER_ID}"
+check "Export payments as CSV" 'Smoke Traders full payment' "${BASE_URL}/api/export/payments?userId=${USER_ID}&format=CSV"
+check "Metrics" '200$' "${BASE_URL}/actuator/metrics"
+
+echo ""
+echo "RSS after smoke run: $(grep VmRSS /proc/$PID/status | awk '{print $2 / 1024 " MB"}')"
+
+if [ $FAILURES -gt 0 ]; then
+  echo "$FAILURES check(s) failed, see $LOG_FILE"
+  exit 1
+fi
+echo "All checks passed"
@@ -0,0 +1,111 @@
+package com.mybillbook.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Splits database traffic across several Hikari pools so one kind of work cannot exhaust the
+ * connections another depends on.
+ * <ul>
+ *   <li>{@code datasource.workload-pools.enabled}: bulk uploads and background work (reconciliation
+ *   runs, exports, the queue worker) get pools of their own, sized and timed out independently of
+ *   the interactive pool configured under {@code spring.datasource.hikari}.</li>
+ *   <li>{@code datasource.replica.enabled}: read-only transactions go to a replica pool.</li>
+ * </ul>
+ * With neither enabled, Boot's single auto-configured pool is used. Every pool is named, so
+ * {@code hikaricp.connections.*} metrics are reported per pool.
+ */
+@Configuration
+@ConditionalOnExpression("${datasource.replica.enabled:false} or ${datasource.workload-pools.enabled:false}")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties,
+                                              @Value("${datasource.workload-pools.enabled:false}") boolean workloadPools) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(workloadPools ? "interactive" : "primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "datasource.workload-pools.enabled", havingValue = "true")
+    @ConfigurationProperties("datasource.workload-pools.ingest")
+    public HikariDataSource ingestDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("ingest");
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "datasource.workload-pools.enabled", havingValue = "true")
+    @ConfigurationProperties("datasource.workload-pools.background")
+    public HikariDataSource backgroundDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("background");
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${datasource.replica.url}") String url,
+                                              @Value("${datasource.replica.username}") String username,
+                                              @Value("${datasource.replica.password}") String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setReadOnly(true);
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    public RoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                               @Qualifier("ingestDataSource") Optional<DataSource> ingest,
+                                               @Qualifier("backgroundDataSource") Optional<DataSource> background,
+                                               @Qualifier("replicaDataSource") Optional<DataSource> replica) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(RoutingDataSource.Route.PRIMARY, primary);
+        ingest.ifPresent(dataSource -> targets.put(RoutingDataSource.Route.INGEST, dataSource));
+        background.ifPresent(dataSource -> targets.put(RoutingDataSource.Route.BACKGROUND, dataSource));
+        replica.ifPresent(dataSource -> targets.put(RoutingDataSource.Route.REPLICA, dataSource));
+
+        RoutingDataSource routing = new RoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.setReplicaAvailable(replica.isPresent());
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(RoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replica,
+                                               RoutingDataSource routingDataSource,
+                                               @Value("${datasource.replica.max-lag-seconds:5}") double maxLagSeconds) {
+        return new ReplicaLagMonitor(replica, routingDataSource, maxLagSeconds);
+    }
+}
@@ -0,0 +1,23 @@
+package com.mybillbook.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+final class ExecutorThreads {
+
+    private ExecutorThreads() {
+    }
+
+    /**
+     * Names the executor's threads and, when {@code spring.threads.virtual.enabled} is set on a
+     * JVM that supports it, makes them virtual. Pool sizes still cap how much work runs at once.
+     */
+    static void configure(ThreadPoolTaskExecutor executor, String threadNamePrefix, Environment environment) {
+        executor.setThreadNamePrefix(threadNamePrefix);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.mybillbook.config;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class FlywayConfig {
+
+    /**
+     * Migrates on startup, except during a CDS training run ({@code spring.context.exit=onRefresh}),
+     * which only needs the context to load its classes and may run without a database.
+     */
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(Environment environment) {
+        return flyway -> {
+            if (!"onRefresh".equals(environment.getProperty("spring.context.exit"))) {
+                flyway.migrate();
+            }
+        };
+    }
+}
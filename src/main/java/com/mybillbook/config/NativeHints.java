@@ -0,0 +1,81 @@
+package com.mybillbook.config;
+
+import com.mybillbook.dto.InvoiceView;
+import com.mybillbook.dto.OpenAIMatchResponse;
+import com.mybillbook.dto.PaymentView;
+import com.mybillbook.dto.SuggestionView;
+import com.mybillbook.model.Money;
+import com.theokanning.openai.OpenAiError;
+import com.theokanning.openai.Usage;
+import com.theokanning.openai.client.OpenAiApi;
+import com.theokanning.openai.completion.chat.ChatCompletionChoice;
+import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatCompletionResult;
+import com.theokanning.openai.completion.chat.ChatFunctionCall;
+import com.theokanning.openai.completion.chat.ChatMessage;
+import com.theokanning.openai.service.ChatCompletionRequestMixIn;
+import com.theokanning.openai.service.ChatCompletionRequestSerializerAndDeserializer;
+import com.theokanning.openai.service.ChatFunctionCallArgumentsSerializerAndDeserializer;
+import com.theokanning.openai.service.ChatFunctionCallMixIn;
+import com.theokanning.openai.service.ChatFunctionMixIn;
+import com.theokanning.openai.service.ChatFunctionParametersSerializer;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.util.List;
+
+/**
+ * Reflection metadata for a native image that Spring AOT cannot work out on its own. Entities and
+ * controller request/response types are already covered by AOT; what is left is JSON bound outside
+ * Spring MVC (the AI's answer, streamed exports) and the OpenAI client, which Retrofit drives
+ * through a JDK proxy and Jackson mix-ins.
+ */
+public class NativeHints implements RuntimeHintsRegistrar {
+
+    // Mix-ins and (de)serializers OpenAiService.defaultObjectMapper() attaches to the request types
+    private static final List<Class<?>> OPENAI_JACKSON_CUSTOMIZATIONS = List.of(
+        ChatCompletionRequestMixIn.class,
+        ChatFunctionCallMixIn.class,
+        ChatFunctionMixIn.class,
+        ChatCompletionRequestSerializerAndDeserializer.Serializer.class,
+        ChatCompletionRequestSerializerAndDeserializer.Deserializer.class,
+        ChatFunctionCallArgumentsSerializerAndDeserializer.Serializer.class,
+        ChatFunctionCallArgumentsSerializerAndDeserializer.Deserializer.class,
+        ChatFunctionParametersSerializer.class
+    );
+
+    private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bindingHints.registerReflectionHints(hints.reflection(),
+            OpenAIMatchResponse.class,
+            InvoiceView.class,
+            PaymentView.class,
+            SuggestionView.class,
+            ChatCompletionRequest.class,
+            ChatCompletionResult.class,
+            ChatCompletionChoice.class,
+            ChatMessage.class,
+            ChatFunctionCall.class,
+            Usage.class,
+            OpenAiError.class,
+            OpenAiError.OpenAiErrorDetails.class);
+
+        // Money is read and written through its @JsonCreator factory and @JsonValue method, not as a bean
+        hints.reflection().registerType(Money.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        for (Class<?> type : OPENAI_JACKSON_CUSTOMIZATIONS) {
+            hints.reflection().registerType(type,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                MemberCategory.INVOKE_DECLARED_METHODS,
+                MemberCategory.DECLARED_FIELDS);
+        }
+
+        // Retrofit implements the API interface with a proxy and reads its annotations and generic return types
+        hints.proxies().registerJdkProxy(OpenAiApi.class);
+        hints.reflection().registerType(OpenAiApi.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+    }
+}
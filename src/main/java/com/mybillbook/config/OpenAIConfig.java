@@ -1,6 +1,8 @@
 package com.mybillbook.config;
 
+import com.theokanning.openai.client.OpenAiApi;
 import com.theokanning.openai.service.OpenAiService;
+import okhttp3.OkHttpClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -16,8 +18,18 @@ public class OpenAIConfig {
     @Value("${openai.timeout:30000}")
     private long timeout;
 
+    // Overridable so load tests can point the client at a stub server
+    @Value("${openai.base-url:https://api.openai.com/}")
+    private String baseUrl;
+
     @Bean
     public OpenAiService openAiService() {
-        return new OpenAiService(apiKey, Duration.ofMillis(timeout));
+        OkHttpClient client = OpenAiService.defaultClient(apiKey, Duration.ofMillis(timeout));
+        OpenAiApi api = OpenAiService.defaultRetrofit(client, OpenAiService.defaultObjectMapper())
+            .newBuilder()
+            .baseUrl(baseUrl)
+            .build()
+            .create(OpenAiApi.class);
+        return new OpenAiService(api, client.dispatcher().executorService());
     }
 }
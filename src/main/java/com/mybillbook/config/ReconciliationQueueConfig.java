@@ -0,0 +1,31 @@
+package com.mybillbook.config;
+
+import com.mybillbook.enums.Workload;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@ConditionalOnProperty(name = "reconciliation.queue.enabled", havingValue = "true")
+public class ReconciliationQueueConfig {
+
+    @Value("${reconciliation.queue.workers:2}")
+    private int workers;
+
+    @Bean
+    public ThreadPoolTaskExecutor reconciliationWorkerExecutor(Environment environment) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        // Jobs are only claimed when a worker is free, so nothing needs to wait in memory
+        executor.setQueueCapacity(0);
+        ExecutorThreads.configure(executor, "reconciliation-worker-", environment);
+        executor.setTaskDecorator(WorkloadContext.decorator(Workload.BACKGROUND));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+}
@@ -0,0 +1,57 @@
+package com.mybillbook.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Periodically measures how far the replica trails the primary and takes it out of rotation
+ * while the lag exceeds the limit or the replica cannot be reached.
+ */
+@Slf4j
+class ReplicaLagMonitor {
+
+    // A replica that has replayed everything it received is current even if the primary is idle
+    private static final String LAG_QUERY = "SELECT CASE "
+        + "WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+        + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private final DataSource replicaDataSource;
+    private final RoutingDataSource routingDataSource;
+    private final double maxLagSeconds;
+
+    ReplicaLagMonitor(DataSource replicaDataSource, RoutingDataSource routingDataSource, double maxLagSeconds) {
+        this.replicaDataSource = replicaDataSource;
+        this.routingDataSource = routingDataSource;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval-ms:2000}")
+    void check() {
+        boolean available;
+        try (Connection connection = replicaDataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(LAG_QUERY)) {
+            result.next();
+            double lagSeconds = result.getDouble(1);
+            available = lagSeconds <= maxLagSeconds;
+            if (!available) {
+                log.debug("Replica is {}s behind the primary", lagSeconds);
+            }
+        } catch (SQLException e) {
+            log.debug("Replica lag check failed: {}", e.getMessage());
+            available = false;
+        }
+
+        if (available != routingDataSource.isReplicaAvailable()) {
+            log.warn(available ? "Replica caught up, routing read-only transactions to it again"
+                : "Replica unavailable or lagging, routing read-only transactions to the primary");
+        }
+        routingDataSource.setReplicaAvailable(available);
+    }
+}
@@ -0,0 +1,50 @@
+package com.mybillbook.config;
+
+import com.mybillbook.enums.Workload;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Picks a connection pool per transaction: read-only transactions go to the replica while it is
+ * available, everything else goes to the pool of the workload the thread is serving. Routes
+ * without a target of their own fall back to the primary pool. Must sit behind a
+ * LazyConnectionDataSourceProxy: the transaction's read-only flag is only published after the
+ * transaction manager has asked for a connection.
+ */
+class RoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY,
+        INGEST,
+        BACKGROUND,
+        REPLICA
+    }
+
+    private volatile boolean replicaAvailable = true;
+
+    void setReplicaAvailable(boolean replicaAvailable) {
+        this.replicaAvailable = replicaAvailable;
+    }
+
+    boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isActualTransactionActive()
+            && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (readOnly && replicaAvailable) {
+            return Route.REPLICA;
+        }
+        return routeFor(WorkloadContext.current());
+    }
+
+    static Route routeFor(Workload workload) {
+        return switch (workload) {
+            case INTERACTIVE -> Route.PRIMARY;
+            case INGEST -> Route.INGEST;
+            case BACKGROUND -> Route.BACKGROUND;
+        };
+    }
+}
@@ -1,16 +1,34 @@
 package com.mybillbook.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.mybillbook.enums.Workload;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
+    private final Environment environment;
+
     @Value("${cors.allowed.origins:http://localhost:5173,http://localhost:3000}")
     private String allowedOrigins;
 
+    @Value("${export.async-timeout-ms:1800000}")
+    private long exportTimeoutMs;
+
+    @Value("${export.max-concurrent:4}")
+    private int maxConcurrentExports;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/api/**")
@@ -19,4 +37,28 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedHeaders("*")
                 .allowCredentials(true);
     }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // Streaming exports write from this pool, so a large download never holds a request thread
+        configurer.setTaskExecutor(streamingResponseExecutor());
+        configurer.setDefaultTimeout(exportTimeoutMs);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor streamingResponseExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentExports);
+        executor.setMaxPoolSize(maxConcurrentExports);
+        executor.setQueueCapacity(50);
+        ExecutorThreads.configure(executor, "export-", environment);
+        executor.setTaskDecorator(WorkloadContext.decorator(Workload.BACKGROUND));
+        return executor;
+    }
+
+    // Replaces Spring's default Smile converter, which would use a plain mapper instead of the one the JSON endpoints use
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2SmileHttpMessageConverter(objectMapper.copyWith(new SmileFactory()));
+    }
 }
@@ -0,0 +1,64 @@
+package com.mybillbook.config;
+
+import com.mybillbook.enums.Workload;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.function.Supplier;
+
+/**
+ * Tags the current thread with the workload it is serving, so its database work is drawn from
+ * that workload's connection pool. Threads that are not tagged count as interactive.
+ */
+public final class WorkloadContext {
+
+    private static final ThreadLocal<Workload> CURRENT = new ThreadLocal<>();
+
+    private WorkloadContext() {
+    }
+
+    public static Workload current() {
+        Workload workload = CURRENT.get();
+        return workload != null ? workload : Workload.INTERACTIVE;
+    }
+
+    public static void run(Workload workload, Runnable task) {
+        call(workload, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public static <T> T call(Workload workload, Supplier<T> task) {
+        Workload previous = enter(workload);
+        try {
+            return task.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Decorator for executors whose tasks all belong to one workload.
+     */
+    public static TaskDecorator decorator(Workload workload) {
+        return task -> () -> run(workload, task);
+    }
+
+    /**
+     * Tags the thread and returns the previous tag, which must be handed back to
+     * {@link #restore} in a finally block.
+     */
+    static Workload enter(Workload workload) {
+        Workload previous = CURRENT.get();
+        CURRENT.set(workload);
+        return previous;
+    }
+
+    static void restore(Workload previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.mybillbook.config;
+
+import com.mybillbook.enums.Workload;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Classifies each API request by workload: bulk uploads are ingest, reconciliation runs and
+ * exports are background, everything else (login, dashboards, confirmations) is interactive.
+ */
+@Component
+public class WorkloadFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Workload previous = WorkloadContext.enter(classify(request.getRequestURI()));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            WorkloadContext.restore(previous);
+        }
+    }
+
+    static Workload classify(String path) {
+        if (path.equals("/api/invoices/upload") || path.equals("/api/payments/upload")) {
+            return Workload.INGEST;
+        }
+        if (path.equals("/api/reconciliation/run") || path.startsWith("/api/export/")) {
+            return Workload.BACKGROUND;
+        }
+        return Workload.INTERACTIVE;
+    }
+}
@@ -0,0 +1,33 @@
+package com.mybillbook.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Answers conditional GETs for per-user data. The body is only loaded when the client's
+ * If-None-Match no longer matches the ETag, which is set on both outcomes. The body may be JSON
+ * or Smile depending on Accept, so caches have to key on it too.
+ */
+final class ConditionalGet {
+
+    // User data: browsers may keep it but must revalidate, shared caches must not store it
+    private static final CacheControl REVALIDATE_PRIVATELY = CacheControl.noCache().cachePrivate();
+
+    private ConditionalGet() {
+    }
+
+    static <T> ResponseEntity<T> respond(WebRequest request, String eTag, Supplier<T> body) {
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .cacheControl(REVALIDATE_PRIVATELY)
+                .varyBy(HttpHeaders.ACCEPT)
+                .build();
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE_PRIVATELY).varyBy(HttpHeaders.ACCEPT).body(body.get());
+    }
+}
@@ -0,0 +1,88 @@
+package com.mybillbook.controller;
+
+import com.mybillbook.enums.ExportFormat;
+import com.mybillbook.service.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+@Tag(name = "Export", description = "Streaming ledger export endpoints")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    @GetMapping("/invoices")
+    @Operation(summary = "Export invoices", description = "Stream every invoice of a user as JSON, CSV or Smile")
+    public ResponseEntity<StreamingResponseBody> exportInvoices(
+            @RequestParam Long userId,
+            @RequestParam(required = false) ExportFormat format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        ExportFormat resolved = resolveFormat(format, accept);
+        return stream("invoices", resolved, out -> exportService.exportInvoices(userId, resolved, out));
+    }
+
+    @GetMapping("/payments")
+    @Operation(summary = "Export payments", description = "Stream every payment of a user as JSON, CSV or Smile")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam Long userId,
+            @RequestParam(required = false) ExportFormat format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        ExportFormat resolved = resolveFormat(format, accept);
+        return stream("payments", resolved, out -> exportService.exportPayments(userId, resolved, out));
+    }
+
+    @GetMapping("/matches")
+    @Operation(summary = "Export confirmed matches", description = "Stream every confirmed payment-invoice match of a user as JSON, CSV or Smile")
+    public ResponseEntity<StreamingResponseBody> exportConfirmedMatches(
+            @RequestParam Long userId,
+            @RequestParam(required = false) ExportFormat format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        ExportFormat resolved = resolveFormat(format, accept);
+        return stream("matches", resolved, out -> exportService.exportConfirmedMatches(userId, resolved, out));
+    }
+
+    // The format parameter wins; without it the first Accept entry naming a supported format does, else JSON
+    private static ExportFormat resolveFormat(ExportFormat format, String accept) {
+        if (format != null) {
+            return format;
+        }
+        if (accept == null) {
+            return ExportFormat.JSON;
+        }
+        try {
+            for (MediaType accepted : MediaType.parseMediaTypes(accept)) {
+                for (ExportFormat candidate : ExportFormat.values()) {
+                    if (accepted.equalsTypeAndSubtype(MediaType.parseMediaType(candidate.getMediaType()))) {
+                        return candidate;
+                    }
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            // Unparseable Accept: fall through to the default
+        }
+        return ExportFormat.JSON;
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(String name, ExportFormat format, StreamingResponseBody body) {
+        String filename = name + "." + format.getExtension();
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(format.getMediaType()))
+            .varyBy(HttpHeaders.ACCEPT)
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+            .body(body);
+    }
+}
@@ -1,19 +1,22 @@
 package com.mybillbook.controller;
 
+import com.mybillbook.dto.InvoiceView;
+import com.mybillbook.dto.UploadResponse;
+import com.mybillbook.dto.UploadResult;
 import com.mybillbook.enums.InvoiceStatus;
 import com.mybillbook.model.Invoice;
 import com.mybillbook.model.User;
 import com.mybillbook.service.AuthService;
+import com.mybillbook.service.DataVersionService;
 import com.mybillbook.service.InvoiceService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/invoices")
@@ -23,38 +26,36 @@ public class InvoiceController {
 
     private final InvoiceService invoiceService;
     private final AuthService authService;
+    private final DataVersionService dataVersionService;
 
     @PostMapping("/upload")
-    @Operation(summary = "Upload invoices", description = "Bulk upload invoices for a user")
-    public ResponseEntity<Map<String, Object>> uploadInvoices(
+    @Operation(summary = "Upload invoices", description = "Bulk upload invoices for a user; resending a batch skips rows already stored")
+    public ResponseEntity<UploadResponse> uploadInvoices(
             @RequestParam Long userId,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody List<Invoice> invoices) {
 
         User user = authService.getUserById(userId);
-        List<Invoice> savedInvoices = invoiceService.uploadInvoices(invoices, user);
+        UploadResult result = invoiceService.uploadInvoices(invoices, user, idempotencyKey);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("uploaded", savedInvoices.size());
-        response.put("failed", 0);
-        response.put("message", "Invoices uploaded successfully");
-
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(UploadResponse.of(result, "Invoices uploaded successfully"));
     }
 
     @GetMapping
     @Operation(summary = "Get invoices", description = "Get invoices by user and optional status filter")
-    public ResponseEntity<List<Invoice>> getInvoices(
+    public ResponseEntity<List<InvoiceView>> getInvoices(
             @RequestParam Long userId,
-            @RequestParam(required = false) InvoiceStatus status) {
+            @RequestParam(required = false) InvoiceStatus status,
+            WebRequest request) {
 
-        List<Invoice> invoices = invoiceService.getInvoicesByUserIdAndStatus(userId, status);
-        return ResponseEntity.ok(invoices);
+        return ConditionalGet.respond(request, dataVersionService.eTag(userId),
+            () -> invoiceService.getInvoicesByUserIdAndStatus(userId, status));
     }
 
     @GetMapping("/all")
     @Operation(summary = "Get all invoices", description = "Get all invoices for a user")
-    public ResponseEntity<List<Invoice>> getAllInvoices(@RequestParam Long userId) {
-        List<Invoice> invoices = invoiceService.getAllInvoices(userId);
-        return ResponseEntity.ok(invoices);
+    public ResponseEntity<List<InvoiceView>> getAllInvoices(@RequestParam Long userId, WebRequest request) {
+        return ConditionalGet.respond(request, dataVersionService.eTag(userId),
+            () -> invoiceService.getAllInvoices(userId));
     }
 }
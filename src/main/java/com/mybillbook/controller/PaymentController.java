@@ -1,19 +1,22 @@
 package com.mybillbook.controller;
 
+import com.mybillbook.dto.PaymentView;
+import com.mybillbook.dto.UploadResponse;
+import com.mybillbook.dto.UploadResult;
 import com.mybillbook.enums.PaymentStatus;
 import com.mybillbook.model.Payment;
 import com.mybillbook.model.User;
 import com.mybillbook.service.AuthService;
+import com.mybillbook.service.DataVersionService;
 import com.mybillbook.service.PaymentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/payments")
@@ -23,38 +26,36 @@ public class PaymentController {
 
     private final PaymentService paymentService;
     private final AuthService authService;
+    private final DataVersionService dataVersionService;
 
     @PostMapping("/upload")
-    @Operation(summary = "Upload payments", description = "Bulk upload payments for a user")
-    public ResponseEntity<Map<String, Object>> uploadPayments(
+    @Operation(summary = "Upload payments", description = "Bulk upload payments for a user; a batch resent with the same Idempotency-Key is not stored twice")
+    public ResponseEntity<UploadResponse> uploadPayments(
             @RequestParam Long userId,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody List<Payment> payments) {
 
         User user = authService.getUserById(userId);
-        List<Payment> savedPayments = paymentService.uploadPayments(payments, user);
+        UploadResult result = paymentService.uploadPayments(payments, user, idempotencyKey);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("uploaded", savedPayments.size());
-        response.put("failed", 0);
-        response.put("message", "Payments uploaded successfully");
-
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(UploadResponse.of(result, "Payments uploaded successfully"));
     }
 
     @GetMapping
     @Operation(summary = "Get payments", description = "Get payments by user and optional status filter")
-    public ResponseEntity<List<Payment>> getPayments(
+    public ResponseEntity<List<PaymentView>> getPayments(
             @RequestParam Long userId,
-            @RequestParam(required = false) PaymentStatus status) {
+            @RequestParam(required = false) PaymentStatus status,
+            WebRequest request) {
 
-        List<Payment> payments = paymentService.getPaymentsByUserIdAndStatus(userId, status);
-        return ResponseEntity.ok(payments);
+        return ConditionalGet.respond(request, dataVersionService.eTag(userId),
+            () -> paymentService.getPaymentsByUserIdAndStatus(userId, status));
     }
 
     @GetMapping("/all")
     @Operation(summary = "Get all payments", description = "Get all payments for a user")
-    public ResponseEntity<List<Payment>> getAllPayments(@RequestParam Long userId) {
-        List<Payment> payments = paymentService.getAllPayments(userId);
-        return ResponseEntity.ok(payments);
+    public ResponseEntity<List<PaymentView>> getAllPayments(@RequestParam Long userId, WebRequest request) {
+        return ConditionalGet.respond(request, dataVersionService.eTag(userId),
+            () -> paymentService.getAllPayments(userId));
     }
 }
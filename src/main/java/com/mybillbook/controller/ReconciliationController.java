@@ -1,12 +1,14 @@
 package com.mybillbook.controller;
 
-import com.mybillbook.model.ReconciliationSuggestion;
+import com.mybillbook.dto.SuggestionView;
+import com.mybillbook.service.DataVersionService;
 import com.mybillbook.service.ReconciliationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.math.BigDecimal;
 import java.util.HashMap;
@@ -20,11 +22,15 @@ import java.util.Map;
 public class ReconciliationController {
 
     private final ReconciliationService reconciliationService;
+    private final DataVersionService dataVersionService;
 
     @PostMapping("/run")
-    @Operation(summary = "Run AI reconciliation", description = "Process all unreconciled payments using AI to find matching invoices")
-    public ResponseEntity<Map<String, Object>> runReconciliation(@RequestParam Long userId) {
-        int suggestionsGenerated = reconciliationService.runReconciliation(userId);
+    @Operation(summary = "Run AI reconciliation", description = "Process unreconciled payments using AI to find matching invoices. "
+            + "In incremental mode only payments and invoices added or changed since the previous run are considered.")
+    public ResponseEntity<Map<String, Object>> runReconciliation(
+            @RequestParam Long userId,
+            @RequestParam(defaultValue = "false") boolean incremental) {
+        int suggestionsGenerated = reconciliationService.runReconciliation(userId, incremental);
 
         Map<String, Object> response = new HashMap<>();
         response.put("suggestionsGenerated", suggestionsGenerated);
@@ -35,9 +41,9 @@ public class ReconciliationController {
 
     @GetMapping("/suggestions")
     @Operation(summary = "Get pending suggestions", description = "Retrieve all pending AI suggestions for a user")
-    public ResponseEntity<List<ReconciliationSuggestion>> getPendingSuggestions(@RequestParam Long userId) {
-        List<ReconciliationSuggestion> suggestions = reconciliationService.getPendingSuggestions(userId);
-        return ResponseEntity.ok(suggestions);
+    public ResponseEntity<List<SuggestionView>> getPendingSuggestions(@RequestParam Long userId, WebRequest request) {
+        return ConditionalGet.respond(request, dataVersionService.eTag(userId),
+            () -> reconciliationService.getPendingSuggestions(userId));
     }
 
     @PostMapping("/confirm/{suggestionId}")
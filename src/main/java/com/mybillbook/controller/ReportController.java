@@ -1,11 +1,13 @@
 package com.mybillbook.controller;
 
+import com.mybillbook.service.DataVersionService;
 import com.mybillbook.service.ReportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Map;
 
@@ -16,11 +18,12 @@ import java.util.Map;
 public class ReportController {
 
     private final ReportService reportService;
+    private final DataVersionService dataVersionService;
 
     @GetMapping("/summary")
     @Operation(summary = "Get summary report", description = "Get comprehensive reconciliation summary with stats and AI accuracy")
-    public ResponseEntity<Map<String, Object>> getSummaryReport(@RequestParam Long userId) {
-        Map<String, Object> report = reportService.getSummaryReport(userId);
-        return ResponseEntity.ok(report);
+    public ResponseEntity<Map<String, Object>> getSummaryReport(@RequestParam Long userId, WebRequest request) {
+        return ConditionalGet.respond(request, dataVersionService.eTag(userId),
+            () -> reportService.getSummaryReport(userId));
     }
 }
@@ -0,0 +1,10 @@
+package com.mybillbook.dto;
+
+import com.mybillbook.enums.InvoiceStatus;
+
+/**
+ * Number of invoices in one status and the sums of their amounts in paise, as returned by
+ * GROUP BY aggregate queries.
+ */
+public record InvoiceStatusTotals(InvoiceStatus status, long count, long totalPaise, long pendingPaise) {
+}
@@ -0,0 +1,23 @@
+package com.mybillbook.dto;
+
+import com.mybillbook.enums.InvoiceStatus;
+import com.mybillbook.model.Money;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only invoice row for list endpoints, populated directly by JPQL constructor expressions.
+ */
+public record InvoiceView(
+    Long id,
+    String invoiceNumber,
+    String customerName,
+    Money totalAmount,
+    Money pendingAmount,
+    InvoiceStatus status,
+    LocalDate invoiceDate,
+    LocalDateTime createdAt,
+    LocalDateTime updatedAt
+) {
+}
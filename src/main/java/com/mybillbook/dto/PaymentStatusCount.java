@@ -0,0 +1,9 @@
+package com.mybillbook.dto;
+
+import com.mybillbook.enums.PaymentStatus;
+
+/**
+ * Number of payments in one status, as returned by GROUP BY aggregate queries.
+ */
+public record PaymentStatusCount(PaymentStatus status, long count) {
+}
@@ -0,0 +1,22 @@
+package com.mybillbook.dto;
+
+import com.mybillbook.enums.PaymentMode;
+import com.mybillbook.enums.PaymentStatus;
+import com.mybillbook.model.Money;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only payment row for list endpoints, populated directly by JPQL constructor expressions.
+ */
+public record PaymentView(
+    Long id,
+    Money amount,
+    LocalDate paymentDate,
+    PaymentMode paymentMode,
+    String remark,
+    PaymentStatus status,
+    LocalDateTime createdAt
+) {
+}
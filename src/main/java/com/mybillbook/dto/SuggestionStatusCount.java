@@ -0,0 +1,9 @@
+package com.mybillbook.dto;
+
+import com.mybillbook.enums.SuggestionStatus;
+
+/**
+ * Number of suggestions in one status, as returned by GROUP BY aggregate queries.
+ */
+public record SuggestionStatusCount(SuggestionStatus status, long count) {
+}
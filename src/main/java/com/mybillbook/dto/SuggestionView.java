@@ -0,0 +1,49 @@
+package com.mybillbook.dto;
+
+import com.mybillbook.enums.InvoiceStatus;
+import com.mybillbook.enums.MatchType;
+import com.mybillbook.enums.PaymentMode;
+import com.mybillbook.enums.PaymentStatus;
+import com.mybillbook.enums.SuggestionStatus;
+import com.mybillbook.model.Money;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only suggestion with its payment and invoice, shaped like the entity JSON the UI expects.
+ */
+public record SuggestionView(
+    Long id,
+    PaymentView payment,
+    InvoiceView invoice,
+    BigDecimal confidence,
+    String reasoning,
+    SuggestionStatus status,
+    String aiModel,
+    MatchType matchType,
+    Money allocatedAmount,
+    String allocationGroup,
+    LocalDateTime createdAt,
+    LocalDateTime confirmedAt
+) {
+
+    /**
+     * Flat constructor for JPQL, which cannot nest constructor expressions.
+     */
+    public SuggestionView(Long id, BigDecimal confidence, String reasoning, SuggestionStatus status, String aiModel,
+                          MatchType matchType, Money allocatedAmount, String allocationGroup,
+                          LocalDateTime createdAt, LocalDateTime confirmedAt,
+                          Long paymentId, Money amount, LocalDate paymentDate, PaymentMode paymentMode,
+                          String remark, PaymentStatus paymentStatus, LocalDateTime paymentCreatedAt,
+                          Long invoiceId, String invoiceNumber, String customerName, Money totalAmount,
+                          Money pendingAmount, InvoiceStatus invoiceStatus, LocalDate invoiceDate,
+                          LocalDateTime invoiceCreatedAt, LocalDateTime invoiceUpdatedAt) {
+        this(id,
+            new PaymentView(paymentId, amount, paymentDate, paymentMode, remark, paymentStatus, paymentCreatedAt),
+            new InvoiceView(invoiceId, invoiceNumber, customerName, totalAmount, pendingAmount, invoiceStatus,
+                invoiceDate, invoiceCreatedAt, invoiceUpdatedAt),
+            confidence, reasoning, status, aiModel, matchType, allocatedAmount, allocationGroup, createdAt, confirmedAt);
+    }
+}
@@ -0,0 +1,14 @@
+package com.mybillbook.dto;
+
+import java.util.List;
+
+/**
+ * Body of the bulk upload endpoints.
+ */
+public record UploadResponse(int uploaded, int skipped, int failed, List<UploadResult.RowError> errors, String message) {
+
+    public static UploadResponse of(UploadResult result, String successMessage) {
+        return new UploadResponse(result.uploaded(), result.skipped(), result.failed(), result.errors(),
+            result.replayed() ? "Batch already processed" : successMessage);
+    }
+}
@@ -0,0 +1,15 @@
+package com.mybillbook.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk upload. Rows already stored by an earlier attempt (invoice numbers the user
+ * already has, payments of an upload sent with an Idempotency-Key) are skipped rather than
+ * failed, so a client can safely resend the same file, including after a failure part way.
+ * A replayed result is the one recorded for the key, errors and all.
+ */
+public record UploadResult(int uploaded, int skipped, int failed, List<RowError> errors, boolean replayed) {
+
+    public record RowError(int row, String message) {
+    }
+}
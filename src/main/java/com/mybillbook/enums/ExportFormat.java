@@ -0,0 +1,15 @@
+package com.mybillbook.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+    JSON("application/json", "json"),
+    CSV("text/csv", "csv"),
+    SMILE("application/x-jackson-smile", "sml");
+
+    private final String mediaType;
+    private final String extension;
+}
@@ -0,0 +1,7 @@
+package com.mybillbook.enums;
+
+public enum MatchType {
+    AI,
+    SPLIT_ALLOCATION,
+    INSTALMENT_AGGREGATION
+}
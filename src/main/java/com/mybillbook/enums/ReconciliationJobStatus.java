@@ -0,0 +1,8 @@
+package com.mybillbook.enums;
+
+public enum ReconciliationJobStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+}
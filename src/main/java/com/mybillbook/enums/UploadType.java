@@ -0,0 +1,6 @@
+package com.mybillbook.enums;
+
+public enum UploadType {
+    INVOICES,
+    PAYMENTS
+}
@@ -0,0 +1,7 @@
+package com.mybillbook.enums;
+
+public enum Workload {
+    INTERACTIVE,
+    INGEST,
+    BACKGROUND
+}
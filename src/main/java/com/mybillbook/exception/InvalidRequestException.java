@@ -0,0 +1,8 @@
+package com.mybillbook.exception;
+
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
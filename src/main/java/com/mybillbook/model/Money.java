@@ -0,0 +1,63 @@
+package com.mybillbook.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * A rupee amount held as a whole number of paise. Matching and reporting compare and add
+ * amounts for every row they look at, which as plain longs costs no allocation; BigDecimal
+ * only appears at the edges, in the DECIMAL(10,2) columns and as the JSON number.
+ */
+public record Money(long paise) implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    public static Money ofPaise(long paise) {
+        return paise == 0 ? ZERO : new Money(paise);
+    }
+
+    /**
+     * Rounds to whole paise the way a NUMERIC(…, 2) column does.
+     *
+     * @throws ArithmeticException if the amount does not fit in a long number of paise
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Money of(BigDecimal amount) {
+        return ofPaise(amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public static Money of(String amount) {
+        return of(new BigDecimal(amount));
+    }
+
+    public Money plus(Money other) {
+        return ofPaise(Math.addExact(paise, other.paise));
+    }
+
+    public Money minus(Money other) {
+        return ofPaise(Math.subtractExact(paise, other.paise));
+    }
+
+    public int signum() {
+        return Long.signum(paise);
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(paise, 2);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(paise, other.paise);
+    }
+
+    // Rupees with two decimals, as in prompts, suggestion reasons and logs
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -1,6 +1,7 @@
 package com.mybillbook.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.mybillbook.enums.MatchType;
 import com.mybillbook.enums.SuggestionStatus;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -13,20 +14,26 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "reconciliation_suggestions")
+@NamedEntityGraph(
+    name = ReconciliationSuggestion.WITH_PAYMENT_AND_INVOICE,
+    attributeNodes = {@NamedAttributeNode("payment"), @NamedAttributeNode("invoice")}
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class ReconciliationSuggestion {
 
+    public static final String WITH_PAYMENT_AND_INVOICE = "ReconciliationSuggestion.withPaymentAndInvoice";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "payment_id", nullable = false)
     private Payment payment;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "invoice_id", nullable = false)
     private Invoice invoice;
 
@@ -43,6 +50,22 @@ public class ReconciliationSuggestion {
     @Column(name = "ai_model", length = 50)
     private String aiModel;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "match_type", nullable = false, length = 30)
+    private MatchType matchType = MatchType.AI;
+
+    // Portion of the payment applied to this invoice; null means the full payment amount
+    @Column(name = "allocated_amount", precision = 10, scale = 2)
+    private Money allocatedAmount;
+
+    // Suggestions sharing a group are confirmed or rejected together
+    @Column(name = "allocation_group", length = 36)
+    private String allocationGroup;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
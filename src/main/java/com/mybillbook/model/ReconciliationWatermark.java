@@ -0,0 +1,35 @@
+package com.mybillbook.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-user high-water marks of the data already considered by reconciliation, so incremental
+ * runs only look at payments and invoices that appeared or changed since the previous run.
+ */
+@Entity
+@Table(name = "reconciliation_watermarks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationWatermark {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "last_payment_id", nullable = false)
+    private Long lastPaymentId = 0L;
+
+    @Column(name = "invoices_updated_at")
+    private LocalDateTime invoicesUpdatedAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,50 @@
+package com.mybillbook.model;
+
+import com.mybillbook.enums.UploadType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "upload_batches", uniqueConstraints = @UniqueConstraint(
+    name = "uq_upload_batches_user_type_key", columnNames = {"user_id", "upload_type", "batch_key"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadBatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "upload_type", nullable = false, length = 20)
+    private UploadType uploadType;
+
+    @Column(name = "batch_key", nullable = false, length = 100)
+    private String batchKey;
+
+    @Column(name = "uploaded", nullable = false)
+    private int uploaded;
+
+    @Column(name = "skipped", nullable = false)
+    private int skipped;
+
+    @Column(name = "failed", nullable = false)
+    private int failed;
+
+    // JSON array of the row errors, replayed with the counts
+    @Column(name = "errors", columnDefinition = "TEXT")
+    private String errors;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -1,12 +1,26 @@
 package com.mybillbook.repository;
 
+import com.mybillbook.dto.InvoiceStatusTotals;
+import com.mybillbook.dto.InvoiceView;
 import com.mybillbook.enums.InvoiceStatus;
 import com.mybillbook.model.Invoice;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
@@ -16,4 +30,47 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     List<Invoice> findByUserIdAndStatusIn(Long userId, List<InvoiceStatus> statuses);
 
     Optional<Invoice> findByInvoiceNumber(String invoiceNumber);
+
+    List<Invoice> findByUserIdAndStatusInAndUpdatedAtAfter(Long userId, List<InvoiceStatus> statuses, LocalDateTime updatedAt);
+
+    @Query("SELECT new com.mybillbook.dto.InvoiceView(i.id, i.invoiceNumber, i.customerName, i.totalAmount, "
+        + "i.pendingAmount, i.status, i.invoiceDate, i.createdAt, i.updatedAt) "
+        + "FROM Invoice i WHERE i.user.id = :userId AND i.status IN :statuses")
+    List<InvoiceView> findViewsByUserIdAndStatusIn(@Param("userId") Long userId, @Param("statuses") List<InvoiceStatus> statuses);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.mybillbook.dto.InvoiceView(i.id, i.invoiceNumber, i.customerName, i.totalAmount, "
+        + "i.pendingAmount, i.status, i.invoiceDate, i.createdAt, i.updatedAt) "
+        + "FROM Invoice i WHERE i.user.id = :userId ORDER BY i.id")
+    Stream<InvoiceView> streamViewsByUserId(@Param("userId") Long userId);
+
+    // Amounts are DECIMAL(10,2), so a hundred times their exact sum is a whole number of paise
+    @Query("SELECT new com.mybillbook.dto.InvoiceStatusTotals(i.status, COUNT(i), "
+        + "CAST(SUM(i.totalAmount) * 100 AS long), CAST(SUM(i.pendingAmount) * 100 AS long)) "
+        + "FROM Invoice i WHERE i.user.id = :userId GROUP BY i.status")
+    List<InvoiceStatusTotals> sumByUserIdGroupByStatus(@Param("userId") Long userId);
+
+    /**
+     * Inserts an invoice unless its number is taken, by this user or any other; returns 0 in that case.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO invoices (user_id, invoice_number, customer_name, total_amount, pending_amount, status, "
+        + "invoice_date, version, created_at, updated_at) "
+        + "VALUES (:userId, :invoiceNumber, :customerName, :totalAmount, :pendingAmount, :status, :invoiceDate, 0, :now, :now) "
+        + "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId,
+                       @Param("invoiceNumber") String invoiceNumber,
+                       @Param("customerName") String customerName,
+                       @Param("totalAmount") BigDecimal totalAmount,
+                       @Param("pendingAmount") BigDecimal pendingAmount,
+                       @Param("status") String status,
+                       @Param("invoiceDate") LocalDate invoiceDate,
+                       @Param("now") LocalDateTime now);
+
+    @Query("SELECT i.invoiceNumber FROM Invoice i WHERE i.user.id = :userId AND i.invoiceNumber IN :invoiceNumbers")
+    Set<String> findExistingInvoiceNumbersByUserId(@Param("userId") Long userId,
+                                                   @Param("invoiceNumbers") Collection<String> invoiceNumbers);
+
+    @Query("SELECT MAX(i.updatedAt) FROM Invoice i WHERE i.user.id = :userId")
+    LocalDateTime findMaxUpdatedAtByUserId(@Param("userId") Long userId);
 }
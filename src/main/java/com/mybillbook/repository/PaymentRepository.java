@@ -1,11 +1,23 @@
 package com.mybillbook.repository;
 
+import com.mybillbook.dto.PaymentStatusCount;
+import com.mybillbook.dto.PaymentView;
 import com.mybillbook.enums.PaymentStatus;
 import com.mybillbook.model.Payment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
@@ -13,4 +25,45 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findByUserIdAndStatus(Long userId, PaymentStatus status);
 
     List<Payment> findByUserId(Long userId);
+
+    List<Payment> findByUserIdAndStatusAndIdGreaterThan(Long userId, PaymentStatus status, Long paymentId);
+
+    List<Payment> findByUserIdAndStatusAndIdLessThanEqual(Long userId, PaymentStatus status, Long paymentId);
+
+    @Query("SELECT new com.mybillbook.dto.PaymentView(p.id, p.amount, p.paymentDate, p.paymentMode, p.remark, "
+        + "p.status, p.createdAt) FROM Payment p WHERE p.user.id = :userId")
+    List<PaymentView> findViewsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT new com.mybillbook.dto.PaymentView(p.id, p.amount, p.paymentDate, p.paymentMode, p.remark, "
+        + "p.status, p.createdAt) FROM Payment p WHERE p.user.id = :userId AND p.status = :status")
+    List<PaymentView> findViewsByUserIdAndStatus(@Param("userId") Long userId, @Param("status") PaymentStatus status);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.mybillbook.dto.PaymentView(p.id, p.amount, p.paymentDate, p.paymentMode, p.remark, "
+        + "p.status, p.createdAt) FROM Payment p WHERE p.user.id = :userId ORDER BY p.id")
+    Stream<PaymentView> streamViewsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT new com.mybillbook.dto.PaymentStatusCount(p.status, COUNT(p)) FROM Payment p "
+        + "WHERE p.user.id = :userId GROUP BY p.status")
+    List<PaymentStatusCount> countByUserIdGroupByStatus(@Param("userId") Long userId);
+
+    /**
+     * Inserts a payment unless the user already has one with the same row hash; returns 0 in that
+     * case. Payments without a hash never conflict.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO payments (user_id, amount, payment_date, payment_mode, remark, status, row_hash, version, created_at) "
+        + "VALUES (:userId, :amount, :paymentDate, :paymentMode, :remark, :status, :rowHash, 0, :now) "
+        + "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId,
+                       @Param("amount") BigDecimal amount,
+                       @Param("paymentDate") LocalDate paymentDate,
+                       @Param("paymentMode") String paymentMode,
+                       @Param("remark") String remark,
+                       @Param("status") String status,
+                       @Param("rowHash") String rowHash,
+                       @Param("now") LocalDateTime now);
+
+    @Query("SELECT MAX(p.id) FROM Payment p WHERE p.user.id = :userId")
+    Long findMaxIdByUserId(@Param("userId") Long userId);
 }
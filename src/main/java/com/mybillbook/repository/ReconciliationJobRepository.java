@@ -0,0 +1,65 @@
+package com.mybillbook.repository;
+
+import com.mybillbook.enums.ReconciliationJobStatus;
+import com.mybillbook.model.ReconciliationJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ReconciliationJobRepository extends JpaRepository<ReconciliationJob, Long> {
+
+    boolean existsByUserIdAndStatus(Long userId, ReconciliationJobStatus status);
+
+    /**
+     * Queues a job unless the user already has one queued, returning the number of rows inserted.
+     * The partial unique index makes concurrent calls for one user insert a single row.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO reconciliation_jobs (user_id, status, attempts, available_at, created_at, updated_at) "
+        + "VALUES (:userId, 'QUEUED', 0, :now, :now, :now) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertQueuedIfAbsent(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    /**
+     * Locks due jobs so concurrent workers never claim the same row; rows locked by another
+     * worker are skipped instead of waited on. Users with a running job are left for later.
+     */
+    @Query(value = """
+            SELECT * FROM reconciliation_jobs j
+            WHERE j.status = 'QUEUED' AND j.available_at <= :now
+              AND NOT EXISTS (
+                  SELECT 1 FROM reconciliation_jobs r WHERE r.user_id = j.user_id AND r.status = 'RUNNING')
+            ORDER BY j.available_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<ReconciliationJob> lockDueJobs(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Jobs whose user already has another one queued are left for closeStale
+    @Modifying
+    @Query(value = """
+            UPDATE reconciliation_jobs j SET status = 'QUEUED', locked_at = NULL, updated_at = :now
+            WHERE j.status = 'RUNNING' AND j.locked_at < :cutoff
+              AND NOT EXISTS (
+                  SELECT 1 FROM reconciliation_jobs q WHERE q.user_id = j.user_id AND q.status = 'QUEUED')
+            """, nativeQuery = true)
+    int requeueStale(@Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE ReconciliationJob j SET j.status = :failed, j.lockedAt = null, j.lastError = :error "
+        + "WHERE j.status = :running AND j.lockedAt < :cutoff")
+    int closeStale(@Param("cutoff") LocalDateTime cutoff,
+                   @Param("error") String error,
+                   @Param("running") ReconciliationJobStatus running,
+                   @Param("failed") ReconciliationJobStatus failed);
+
+    @Modifying
+    @Query("DELETE FROM ReconciliationJob j WHERE j.status = :status AND j.updatedAt < :cutoff")
+    int deleteByStatusAndUpdatedAtBefore(@Param("status") ReconciliationJobStatus status,
+                                         @Param("cutoff") LocalDateTime cutoff);
+}
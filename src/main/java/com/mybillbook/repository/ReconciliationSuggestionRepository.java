@@ -1,12 +1,24 @@
 package com.mybillbook.repository;
 
+import com.mybillbook.dto.SuggestionStatusCount;
+import com.mybillbook.dto.SuggestionView;
 import com.mybillbook.enums.SuggestionStatus;
 import com.mybillbook.model.ReconciliationSuggestion;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReconciliationSuggestionRepository extends JpaRepository<ReconciliationSuggestion, Long> {
@@ -20,4 +32,43 @@ public interface ReconciliationSuggestionRepository extends JpaRepository<Reconc
     List<ReconciliationSuggestion> findByStatus(SuggestionStatus status);
 
     List<ReconciliationSuggestion> findByConfidenceGreaterThanEqualAndStatus(BigDecimal confidence, SuggestionStatus status);
+
+    @EntityGraph(ReconciliationSuggestion.WITH_PAYMENT_AND_INVOICE)
+    List<ReconciliationSuggestion> findByAllocationGroupAndStatus(String allocationGroup, SuggestionStatus status);
+
+    @EntityGraph(ReconciliationSuggestion.WITH_PAYMENT_AND_INVOICE)
+    Optional<ReconciliationSuggestion> findWithPaymentAndInvoiceById(Long id);
+
+    @Query("SELECT s.id FROM ReconciliationSuggestion s WHERE s.payment.user.id = :userId AND s.status = :status "
+        + "AND s.confidence >= :minConfidence ORDER BY s.id")
+    List<Long> findIdsByUserIdAndStatusAndMinConfidence(@Param("userId") Long userId,
+                                                        @Param("status") SuggestionStatus status,
+                                                        @Param("minConfidence") BigDecimal minConfidence);
+
+    @Query("SELECT new com.mybillbook.dto.SuggestionStatusCount(s.status, COUNT(s)) FROM ReconciliationSuggestion s "
+        + "WHERE s.payment.user.id = :userId AND s.status IN :statuses GROUP BY s.status")
+    List<SuggestionStatusCount> countByUserIdAndStatusIn(@Param("userId") Long userId,
+                                                         @Param("statuses") Collection<SuggestionStatus> statuses);
+
+    @Query("SELECT new com.mybillbook.dto.SuggestionView(s.id, s.confidence, s.reasoning, s.status, s.aiModel, "
+        + "s.matchType, s.allocatedAmount, s.allocationGroup, s.createdAt, s.confirmedAt, "
+        + "p.id, p.amount, p.paymentDate, p.paymentMode, p.remark, p.status, p.createdAt, "
+        + "i.id, i.invoiceNumber, i.customerName, i.totalAmount, i.pendingAmount, i.status, i.invoiceDate, "
+        + "i.createdAt, i.updatedAt) "
+        + "FROM ReconciliationSuggestion s JOIN s.payment p JOIN s.invoice i "
+        + "WHERE p.user.id = :userId AND s.status = :status")
+    List<SuggestionView> findViewsByUserIdAndStatus(@Param("userId") Long userId, @Param("status") SuggestionStatus status);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.mybillbook.dto.SuggestionView(s.id, s.confidence, s.reasoning, s.status, s.aiModel, "
+        + "s.matchType, s.allocatedAmount, s.allocationGroup, s.createdAt, s.confirmedAt, "
+        + "p.id, p.amount, p.paymentDate, p.paymentMode, p.remark, p.status, p.createdAt, "
+        + "i.id, i.invoiceNumber, i.customerName, i.totalAmount, i.pendingAmount, i.status, i.invoiceDate, "
+        + "i.createdAt, i.updatedAt) "
+        + "FROM ReconciliationSuggestion s JOIN s.payment p JOIN s.invoice i "
+        + "WHERE p.user.id = :userId AND s.status = :status ORDER BY s.id")
+    Stream<SuggestionView> streamViewsByUserIdAndStatus(@Param("userId") Long userId, @Param("status") SuggestionStatus status);
+
+    @Query("SELECT DISTINCT s.payment.id FROM ReconciliationSuggestion s WHERE s.payment.user.id = :userId AND s.status = :status")
+    Set<Long> findPaymentIdsByUserIdAndStatus(@Param("userId") Long userId, @Param("status") SuggestionStatus status);
 }
@@ -0,0 +1,26 @@
+package com.mybillbook.repository;
+
+import com.mybillbook.model.ReconciliationWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ReconciliationWatermarkRepository extends JpaRepository<ReconciliationWatermark, Long> {
+
+    // A single statement, so the first two runs of a new user cannot both try to insert the row
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO reconciliation_watermarks (user_id, last_payment_id, invoices_updated_at, updated_at) "
+        + "VALUES (:userId, :lastPaymentId, :invoicesUpdatedAt, CURRENT_TIMESTAMP) "
+        + "ON CONFLICT (user_id) DO UPDATE SET last_payment_id = EXCLUDED.last_payment_id, "
+        + "invoices_updated_at = EXCLUDED.invoices_updated_at, updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    int upsert(@Param("userId") Long userId,
+               @Param("lastPaymentId") Long lastPaymentId,
+               @Param("invoicesUpdatedAt") LocalDateTime invoicesUpdatedAt);
+}
@@ -0,0 +1,33 @@
+package com.mybillbook.repository;
+
+import com.mybillbook.enums.UploadType;
+import com.mybillbook.model.UploadBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface UploadBatchRepository extends JpaRepository<UploadBatch, Long> {
+
+    Optional<UploadBatch> findByUserIdAndUploadTypeAndBatchKey(Long userId, UploadType uploadType, String batchKey);
+
+    /**
+     * Records a batch unless the same key was recorded already; returns 0 in that case. A
+     * concurrent insert of the same key waits for the first one to commit instead of failing.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO upload_batches (user_id, upload_type, batch_key, uploaded, skipped, failed, errors, created_at) "
+        + "VALUES (:userId, :uploadType, :batchKey, :uploaded, :skipped, :failed, :errors, CURRENT_TIMESTAMP) "
+        + "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId,
+                       @Param("uploadType") String uploadType,
+                       @Param("batchKey") String batchKey,
+                       @Param("uploaded") int uploaded,
+                       @Param("skipped") int skipped,
+                       @Param("failed") int failed,
+                       @Param("errors") String errors);
+}
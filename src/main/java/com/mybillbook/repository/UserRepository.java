@@ -2,7 +2,11 @@ package com.mybillbook.repository;
 
 import com.mybillbook.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -10,4 +14,31 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByMobileNumber(String mobileNumber);
+
+    /**
+     * Registers a user unless the mobile number is already taken, returning the number of rows
+     * inserted. Concurrent calls for the same number never fail on the unique constraint; a call
+     * that loses waits for the winner to commit. No conflict target, which H2 cannot parse: the
+     * mobile number is the only unique key a new row can collide on.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO users (mobile_number, name, business_name, created_at) "
+        + "VALUES (:mobileNumber, :name, :businessName, CURRENT_TIMESTAMP) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("mobileNumber") String mobileNumber,
+                       @Param("name") String name,
+                       @Param("businessName") String businessName);
+
+    @Query("SELECT u.dataVersion FROM User u WHERE u.id = :userId")
+    Optional<Long> findDataVersionById(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE users SET data_version = data_version + 1 WHERE id = :userId", nativeQuery = true)
+    int incrementDataVersion(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE users SET data_version = data_version + 1", nativeQuery = true)
+    int incrementAllDataVersions();
 }
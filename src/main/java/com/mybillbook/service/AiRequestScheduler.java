@@ -0,0 +1,281 @@
+package com.mybillbook.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mybillbook.exception.OpenAIServiceException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Admission control in front of the OpenAI client. Calls are queued per user and granted in
+ * round-robin order across users, subject to per-user and global request and token budgets,
+ * so one large merchant cannot starve everyone else of AI capacity.
+ */
+@Service
+@Slf4j
+public class AiRequestScheduler {
+
+    // Every bucket refills within a minute, so forgetting a budget idle for longer loses nothing
+    private static final Duration IDLE_BUDGET_EXPIRY = Duration.ofMinutes(2);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    // Guarded by lock
+    private final Map<Long, Deque<PendingCall>> queues = new HashMap<>();
+    private final Deque<Long> roundRobin = new ArrayDeque<>();
+    private final Cache<Long, Budget> userBudgets = Caffeine.newBuilder()
+        .expireAfterAccess(IDLE_BUDGET_EXPIRY)
+        .build();
+    private Budget globalBudget;
+
+    private final AtomicInteger queuedCalls = new AtomicInteger();
+    private final AtomicInteger inFlightCalls = new AtomicInteger();
+    private final MeterRegistry meterRegistry;
+    private Timer waitTimer;
+    private Semaphore concurrency;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    @Value("${openai.rate-limit.global.requests-per-minute:500}")
+    private long globalRequestsPerMinute;
+
+    @Value("${openai.rate-limit.global.tokens-per-minute:200000}")
+    private long globalTokensPerMinute;
+
+    @Value("${openai.rate-limit.per-user.requests-per-minute:60}")
+    private long userRequestsPerMinute;
+
+    @Value("${openai.rate-limit.per-user.tokens-per-minute:40000}")
+    private long userTokensPerMinute;
+
+    @Value("${openai.rate-limit.max-concurrent-calls:8}")
+    private int maxConcurrentCalls;
+
+    public AiRequestScheduler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void start() {
+        globalBudget = new Budget(globalRequestsPerMinute, globalTokensPerMinute);
+        concurrency = new Semaphore(maxConcurrentCalls);
+
+        Gauge.builder("ai.scheduler.queue.depth", queuedCalls, AtomicInteger::get)
+            .description("AI calls waiting for rate-limit capacity")
+            .register(meterRegistry);
+        Gauge.builder("ai.scheduler.users.waiting", this, AiRequestScheduler::waitingUsers)
+            .description("Users with at least one queued AI call")
+            .register(meterRegistry);
+        Gauge.builder("ai.scheduler.in.flight", inFlightCalls, AtomicInteger::get)
+            .description("AI calls currently running")
+            .register(meterRegistry);
+        waitTimer = Timer.builder("ai.scheduler.wait")
+            .description("Time AI calls spend queued before being admitted")
+            .register(meterRegistry);
+
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "ai-request-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        dispatcher.interrupt();
+
+        // Nothing will grant these any more, so release the threads waiting on them
+        lock.lock();
+        try {
+            OpenAIServiceException stopped = new OpenAIServiceException("AI scheduler stopped");
+            queues.values().forEach(queue -> queue.forEach(pending -> pending.granted.completeExceptionally(stopped)));
+            queues.clear();
+            roundRobin.clear();
+            queuedCalls.set(0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs {@code call} on the calling thread once the user's turn comes up and both the user's
+     * and the global budgets can absorb one request of {@code estimatedTokens} tokens.
+     */
+    public <T> T execute(Long userId, long estimatedTokens, Supplier<T> call) {
+        PendingCall pending = new PendingCall(estimatedTokens);
+        enqueue(userId, pending);
+
+        try {
+            pending.granted.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandon(userId, pending);
+            throw new OpenAIServiceException("Interrupted while waiting for AI capacity", e);
+        } catch (ExecutionException e) {
+            throw new OpenAIServiceException("AI scheduler rejected the call", e.getCause());
+        }
+
+        waitTimer.record(System.nanoTime() - pending.enqueuedAt, TimeUnit.NANOSECONDS);
+        inFlightCalls.incrementAndGet();
+        try {
+            return call.get();
+        } finally {
+            inFlightCalls.decrementAndGet();
+            concurrency.release();
+        }
+    }
+
+    private void enqueue(Long userId, PendingCall pending) {
+        lock.lock();
+        try {
+            Deque<PendingCall> queue = queues.computeIfAbsent(userId, id -> new ArrayDeque<>());
+            if (queue.isEmpty()) {
+                roundRobin.addLast(userId);
+            }
+            queue.addLast(pending);
+            queuedCalls.incrementAndGet();
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void abandon(Long userId, PendingCall pending) {
+        lock.lock();
+        try {
+            Deque<PendingCall> queue = queues.get(userId);
+            if (queue != null && queue.remove(pending)) {
+                queuedCalls.decrementAndGet();
+                if (queue.isEmpty()) {
+                    queues.remove(userId);
+                    roundRobin.remove(userId);
+                }
+            } else if (!pending.granted.cancel(false)) {
+                // Granted just before the interrupt: hand the concurrency slot back
+                concurrency.release();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                concurrency.acquire();
+                if (!grantNext()) {
+                    concurrency.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("AI scheduler dispatch failed", e);
+            }
+        }
+    }
+
+    /**
+     * Grants the next admissible call, waiting until one exists. Returns false when woken
+     * without granting, so the caller can retry with a fresh concurrency slot.
+     */
+    private boolean grantNext() throws InterruptedException {
+        lock.lock();
+        try {
+            while (roundRobin.isEmpty()) {
+                changed.await();
+            }
+
+            long shortestWait = Long.MAX_VALUE;
+            for (int i = roundRobin.size(); i > 0; i--) {
+                Long userId = roundRobin.pollFirst();
+                Deque<PendingCall> queue = queues.get(userId);
+                PendingCall head = queue.peekFirst();
+                Budget userBudget = userBudgets.get(userId,
+                    id -> new Budget(userRequestsPerMinute, userTokensPerMinute));
+
+                long wait = Math.max(userBudget.nanosUntilAvailable(head.tokens), globalBudget.nanosUntilAvailable(head.tokens));
+                if (wait == 0) {
+                    userBudget.consume(head.tokens);
+                    globalBudget.consume(head.tokens);
+                    queue.pollFirst();
+                    queuedCalls.decrementAndGet();
+                    if (queue.isEmpty()) {
+                        queues.remove(userId);
+                    } else {
+                        roundRobin.addLast(userId);
+                    }
+                    head.granted.complete(null);
+                    return true;
+                }
+
+                roundRobin.addLast(userId);
+                shortestWait = Math.min(shortestWait, wait);
+            }
+
+            changed.awaitNanos(shortestWait);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int waitingUsers() {
+        lock.lock();
+        try {
+            return roundRobin.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class PendingCall {
+        private final long tokens;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<Void> granted = new CompletableFuture<>();
+
+        private PendingCall(long tokens) {
+            this.tokens = tokens;
+        }
+    }
+
+    private static final class Budget {
+        private final TokenBucket requests;
+        private final TokenBucket tokens;
+
+        private Budget(long requestsPerMinute, long tokensPerMinute) {
+            this.requests = new TokenBucket(requestsPerMinute);
+            this.tokens = new TokenBucket(tokensPerMinute);
+        }
+
+        private long nanosUntilAvailable(long tokenCount) {
+            return Math.max(requests.nanosUntilAvailable(1), tokens.nanosUntilAvailable(tokenCount));
+        }
+
+        private void consume(long tokenCount) {
+            requests.consume(1);
+            tokens.consume(tokenCount);
+        }
+    }
+}
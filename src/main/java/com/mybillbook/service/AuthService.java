@@ -5,7 +5,7 @@ import com.mybillbook.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @Slf4j
@@ -13,23 +13,32 @@ import org.springframework.transaction.annotation.Transactional;
 public class AuthService {
 
     private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
+    // Returning users are served from the cache without opening a transaction
     public User login(String mobileNumber, String name, String businessName) {
-        return userRepository.findByMobileNumber(mobileNumber)
-            .orElseGet(() -> {
-                User newUser = new User();
-                newUser.setMobileNumber(mobileNumber);
-                newUser.setName(name);
-                newUser.setBusinessName(businessName);
-                User saved = userRepository.save(newUser);
+        return userCache.findByMobileNumber(mobileNumber)
+            .orElseGet(() -> register(mobileNumber, name, businessName));
+    }
+
+    /**
+     * A burst of first logins for one number inserts a single row and every caller gets it back,
+     * without any of them hitting the unique constraint. The read shares the insert's read-write
+     * transaction, so it runs on the primary and sees a row a concurrent caller just committed.
+     */
+    private User register(String mobileNumber, String name, String businessName) {
+        return transactionTemplate.execute(status -> {
+            if (userRepository.insertIfAbsent(mobileNumber, name, businessName) > 0) {
                 log.info("Created new user with mobile: {}", mobileNumber);
-                return saved;
-            });
+            }
+            return userRepository.findByMobileNumber(mobileNumber)
+                .orElseThrow(() -> new IllegalStateException("User with mobile " + mobileNumber + " vanished after registration"));
+        });
     }
 
     public User getUserById(Long userId) {
-        return userRepository.findById(userId)
+        return userCache.findById(userId)
             .orElseThrow(() -> new RuntimeException("User not found"));
     }
 }
@@ -0,0 +1,42 @@
+package com.mybillbook.service;
+
+import com.mybillbook.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Per-user version of everything the list and report endpoints return; readers turn it into an
+ * ETag before loading the body. Writers bump it in the transaction that makes their change, as
+ * its last statement, so the version commits with the change or not at all and the users row
+ * is only locked from the bump to the commit.
+ */
+@Service
+@RequiredArgsConstructor
+public class DataVersionService {
+
+    private final UserRepository userRepository;
+
+    // Joins the caller's transaction; a failure here rolls back the change it was meant to announce
+    @Transactional
+    public void bump(Long userId) {
+        userRepository.incrementDataVersion(userId);
+    }
+
+    // For changes that cut across users, like archiving a year of suggestions
+    @Transactional
+    public void bumpAll() {
+        userRepository.incrementAllDataVersions();
+    }
+
+    /**
+     * Weak, because the same version is served both gzipped and plain (Tomcat does not compress
+     * responses carrying a strong ETag). If-None-Match compares weakly, so 304s are unaffected.
+     */
+    @Transactional(readOnly = true)
+    public String eTag(Long userId) {
+        // Unknown users have no data, as before: their lists stay empty rather than becoming 404s
+        long version = userRepository.findDataVersionById(userId).orElse(0L);
+        return "W/\"" + userId + "-" + version + "\"";
+    }
+}
@@ -0,0 +1,149 @@
+package com.mybillbook.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.mybillbook.dto.InvoiceView;
+import com.mybillbook.dto.PaymentView;
+import com.mybillbook.dto.SuggestionView;
+import com.mybillbook.enums.ExportFormat;
+import com.mybillbook.enums.SuggestionStatus;
+import com.mybillbook.repository.InvoiceRepository;
+import com.mybillbook.repository.PaymentRepository;
+import com.mybillbook.repository.ReconciliationSuggestionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Streams complete ledgers straight from a database cursor into the response body, one row at
+ * a time, so exports run in constant memory regardless of ledger size.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ExportService {
+
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private static final String[] INVOICE_COLUMNS = {
+        "id", "invoiceNumber", "customerName", "totalAmount", "pendingAmount", "status", "invoiceDate", "createdAt", "updatedAt"
+    };
+    private static final String[] PAYMENT_COLUMNS = {
+        "id", "amount", "paymentDate", "paymentMode", "remark", "status", "createdAt"
+    };
+    private static final String[] MATCH_COLUMNS = {
+        "id", "paymentId", "paymentAmount", "paymentDate", "paymentMode", "remark", "invoiceId", "invoiceNumber",
+        "customerName", "allocatedAmount", "matchType", "confidence", "aiModel", "confirmedAt"
+    };
+
+    private final InvoiceRepository invoiceRepository;
+    private final PaymentRepository paymentRepository;
+    private final ReconciliationSuggestionRepository suggestionRepository;
+    private final ObjectMapper objectMapper;
+    private ObjectMapper smileMapper;
+
+    @PostConstruct
+    void createSmileMapper() {
+        // Same modules and features as JSON, so both formats carry identical fields and values
+        smileMapper = objectMapper.copyWith(new SmileFactory());
+    }
+
+    @Transactional(readOnly = true)
+    public void exportInvoices(Long userId, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<InvoiceView> rows = invoiceRepository.streamViewsByUserId(userId)) {
+            long count = write(rows, InvoiceView.class, format, INVOICE_COLUMNS, invoice -> new Object[]{
+                invoice.id(), invoice.invoiceNumber(), invoice.customerName(), invoice.totalAmount(),
+                invoice.pendingAmount(), invoice.status(), invoice.invoiceDate(), invoice.createdAt(), invoice.updatedAt()
+            }, out);
+            log.info("Exported {} invoices for user {} as {}", count, userId, format);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportPayments(Long userId, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<PaymentView> rows = paymentRepository.streamViewsByUserId(userId)) {
+            long count = write(rows, PaymentView.class, format, PAYMENT_COLUMNS, payment -> new Object[]{
+                payment.id(), payment.amount(), payment.paymentDate(), payment.paymentMode(), payment.remark(),
+                payment.status(), payment.createdAt()
+            }, out);
+            log.info("Exported {} payments for user {} as {}", count, userId, format);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportConfirmedMatches(Long userId, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<SuggestionView> rows = suggestionRepository.streamViewsByUserIdAndStatus(userId, SuggestionStatus.CONFIRMED)) {
+            long count = write(rows, SuggestionView.class, format, MATCH_COLUMNS, match -> new Object[]{
+                match.id(), match.payment().id(), match.payment().amount(), match.payment().paymentDate(),
+                match.payment().paymentMode(), match.payment().remark(), match.invoice().id(),
+                match.invoice().invoiceNumber(), match.invoice().customerName(), match.allocatedAmount(),
+                match.matchType(), match.confidence(), match.aiModel(), match.confirmedAt()
+            }, out);
+            log.info("Exported {} confirmed matches for user {} as {}", count, userId, format);
+        }
+    }
+
+    private <T> long write(Stream<T> rows, Class<T> type, ExportFormat format, String[] columns,
+                           Function<T, Object[]> toColumns, OutputStream out) throws IOException {
+        return switch (format) {
+            case JSON -> writeJackson(rows, rowWriter(objectMapper, type), out);
+            case SMILE -> writeJackson(rows, rowWriter(smileMapper, type), out);
+            case CSV -> writeCsv(rows, columns, toColumns, out);
+        };
+    }
+
+    // One writer per export, without the per-value flush ObjectMapper does by default
+    private static ObjectWriter rowWriter(ObjectMapper mapper, Class<?> rowType) {
+        return mapper.writerFor(rowType).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    private <T> long writeJackson(Stream<T> rows, ObjectWriter writer, OutputStream out) throws IOException {
+        long count = 0;
+
+        // The writer's factory decides the encoding, text JSON or Smile
+        try (JsonGenerator generator = writer.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            for (Iterator<T> it = rows.iterator(); it.hasNext(); ) {
+                writer.writeValue(generator, it.next());
+                if (++count % FLUSH_EVERY_ROWS == 0) {
+                    generator.flush();
+                }
+            }
+            generator.writeEndArray();
+        }
+        return count;
+    }
+
+    private <T> long writeCsv(Stream<T> rows, String[] columns, Function<T, Object[]> toColumns,
+                              OutputStream out) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        CSVFormat csvFormat = CSVFormat.DEFAULT.builder().setHeader(columns).build();
+        long count = 0;
+
+        try (CSVPrinter printer = new CSVPrinter(writer, csvFormat)) {
+            for (Iterator<T> it = rows.iterator(); it.hasNext(); ) {
+                printer.printRecord(toColumns.apply(it.next()));
+                if (++count % FLUSH_EVERY_ROWS == 0) {
+                    printer.flush();
+                }
+            }
+        }
+        return count;
+    }
+}
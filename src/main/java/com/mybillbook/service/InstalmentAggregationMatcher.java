@@ -0,0 +1,96 @@
+package com.mybillbook.service;
+
+import com.mybillbook.model.Invoice;
+import com.mybillbook.model.Payment;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds invoices that were paid off in several instalments by searching the unreconciled
+ * payments attributed to the invoice's customer for a subset summing to its pending amount.
+ */
+@Service
+@Slf4j
+public class InstalmentAggregationMatcher {
+
+    // Keeps the bounded search responsive for customers with very long payment histories
+    private static final int MAX_CANDIDATE_PAYMENTS = 500;
+
+    @Value("${reconciliation.instalment.window-days:90}")
+    private int windowDays;
+
+    // Shared by all invoices of one run; invoices left when it runs out go to the AI pass
+    @Value("${reconciliation.instalment.max-search-steps:20000000}")
+    private long maxSearchSteps;
+
+    public record InstalmentAggregation(Invoice invoice, List<Payment> payments) {
+    }
+
+    public List<InstalmentAggregation> findAggregations(List<Payment> payments, List<Invoice> pendingInvoices) {
+        List<InstalmentAggregation> aggregations = new ArrayList<>();
+        Set<Long> consumedPaymentIds = new HashSet<>();
+        SubsetSumSolver.SearchBudget budget = new SubsetSumSolver.SearchBudget(maxSearchSteps);
+
+        List<Invoice> invoices = pendingInvoices.stream()
+            .filter(inv -> inv.getPendingAmount().signum() > 0)
+            .sorted(Comparator.comparing(Invoice::getInvoiceDate))
+            .toList();
+
+        for (int i = 0; i < invoices.size(); i++) {
+            if (budget.isExhausted()) {
+                log.warn("Instalment search budget of {} steps spent; {} invoices not searched",
+                    maxSearchSteps, invoices.size() - i);
+                break;
+            }
+            Invoice invoice = invoices.get(i);
+            long pendingPaise = invoice.getPendingAmount().paise();
+            LocalDate windowEnd = invoice.getInvoiceDate().plusDays(windowDays);
+
+            List<Payment> candidates = payments.stream()
+                .filter(p -> !consumedPaymentIds.contains(p.getId()))
+                .filter(p -> isAttributedTo(p, invoice))
+                .filter(p -> !p.getPaymentDate().isBefore(invoice.getInvoiceDate()) && !p.getPaymentDate().isAfter(windowEnd))
+                .filter(p -> p.getAmount().paise() <= pendingPaise)
+                .sorted(Comparator.comparing(Payment::getPaymentDate))
+                .limit(MAX_CANDIDATE_PAYMENTS)
+                .toList();
+
+            if (candidates.size() < 2) {
+                continue;
+            }
+
+            long[] amounts = candidates.stream()
+                .mapToLong(p -> p.getAmount().paise())
+                .toArray();
+
+            int[] indices = SubsetSumSolver.findSubset(amounts, pendingPaise, 2, budget);
+            if (indices == null) {
+                continue;
+            }
+
+            List<Payment> instalments = new ArrayList<>(indices.length);
+            for (int index : indices) {
+                Payment payment = candidates.get(index);
+                instalments.add(payment);
+                consumedPaymentIds.add(payment.getId());
+            }
+            aggregations.add(new InstalmentAggregation(invoice, instalments));
+            log.debug("Invoice {} is covered by {} instalment payments", invoice.getInvoiceNumber(), instalments.size());
+        }
+
+        return aggregations;
+    }
+
+    private boolean isAttributedTo(Payment payment, Invoice invoice) {
+        return RemarkMatcher.mentionsInvoice(payment.getRemark(), invoice.getInvoiceNumber())
+            || RemarkMatcher.mentionsCustomer(payment.getRemark(), invoice.getCustomerName());
+    }
+}
@@ -1,7 +1,11 @@
 package com.mybillbook.service;
 
+import com.mybillbook.dto.InvoiceView;
+import com.mybillbook.dto.UploadResult;
 import com.mybillbook.enums.InvoiceStatus;
+import com.mybillbook.enums.UploadType;
 import com.mybillbook.model.Invoice;
+import com.mybillbook.model.Money;
 import com.mybillbook.model.User;
 import com.mybillbook.repository.InvoiceRepository;
 import lombok.RequiredArgsConstructor;
@@ -9,40 +13,138 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class InvoiceService {
 
+    private static final Money MAX_AMOUNT = Money.of("99999999.99");
+
     private final InvoiceRepository invoiceRepository;
+    private final ReconciliationQueueService reconciliationQueueService;
+    private final DataVersionService dataVersionService;
+    private final UploadBatchService uploadBatchService;
+
+    /**
+     * Stores the valid invoices whose numbers are not taken yet. Numbers this user already has are
+     * skipped, so a retried upload is a no-op; invalid rows are reported instead of aborting the batch.
+     */
+    public UploadResult uploadInvoices(List<Invoice> invoices, User user, String batchKey) {
+        return uploadBatchService.runOnce(user.getId(), UploadType.INVOICES, batchKey,
+            () -> storeInvoices(invoices, user));
+    }
+
+    private UploadResult storeInvoices(List<Invoice> invoices, User user) {
+        List<UploadResult.RowError> errors = new ArrayList<>();
+        Map<String, Integer> rowsByNumber = new HashMap<>();
+        List<Invoice> candidates = new ArrayList<>();
+
+        for (int row = 1; row <= invoices.size(); row++) {
+            Invoice invoice = invoices.get(row - 1);
+            String error = validate(invoice);
+            if (error == null && rowsByNumber.containsKey(invoice.getInvoiceNumber())) {
+                error = "Duplicate invoice number " + invoice.getInvoiceNumber() + " in this upload";
+            }
+            if (error != null) {
+                errors.add(new UploadResult.RowError(row, error));
+                continue;
+            }
 
-    @Transactional
-    public List<Invoice> uploadInvoices(List<Invoice> invoices, User user) {
-        invoices.forEach(invoice -> {
-            invoice.setUser(user);
             if (invoice.getStatus() == null) {
                 invoice.setStatus(InvoiceStatus.UNPAID);
             }
             if (invoice.getPendingAmount() == null) {
                 invoice.setPendingAmount(invoice.getTotalAmount());
             }
-        });
+            candidates.add(invoice);
+            rowsByNumber.put(invoice.getInvoiceNumber(), row);
+        }
+
+        int invalid = errors.size();
+        int uploaded = uploadBatchService.insertInChunks(candidates,
+            chunk -> insertChunk(chunk, user.getId(), rowsByNumber, errors));
+        int skipped = candidates.size() - uploaded - (errors.size() - invalid);
+        errors.sort(Comparator.comparingInt(UploadResult.RowError::row));
 
-        List<Invoice> saved = invoiceRepository.saveAll(invoices);
-        log.info("Uploaded {} invoices for user {}", saved.size(), user.getId());
-        return saved;
+        log.info("Uploaded {} invoices for user {} ({} already present, {} rejected)",
+            uploaded, user.getId(), skipped, errors.size());
+        return new UploadResult(uploaded, skipped, errors.size(), errors, false);
     }
 
-    public List<Invoice> getInvoicesByUserIdAndStatus(Long userId, InvoiceStatus status) {
+    // Numbers the insert found taken are skipped when they are this user's, and rejected otherwise
+    private int insertChunk(List<Invoice> chunk, Long userId, Map<String, Integer> rowsByNumber,
+                            List<UploadResult.RowError> errors) {
+        LocalDateTime now = LocalDateTime.now();
+        int inserted = 0;
+        List<String> taken = new ArrayList<>();
+        for (Invoice invoice : chunk) {
+            int stored = invoiceRepository.insertIfAbsent(userId, invoice.getInvoiceNumber(), invoice.getCustomerName(),
+                invoice.getTotalAmount().toBigDecimal(), invoice.getPendingAmount().toBigDecimal(),
+                invoice.getStatus().name(), invoice.getInvoiceDate(), now);
+            if (stored == 0) {
+                taken.add(invoice.getInvoiceNumber());
+            }
+            inserted += stored;
+        }
+
+        Set<String> owned = taken.isEmpty() ? Set.of() : invoiceRepository.findExistingInvoiceNumbersByUserId(userId, taken);
+        taken.stream()
+            .filter(number -> !owned.contains(number))
+            .forEach(number -> errors.add(new UploadResult.RowError(rowsByNumber.get(number), "Invoice number " + number + " already exists")));
+
+        if (inserted > 0) {
+            // Reconcile the new data in the background instead of waiting for a manual run
+            reconciliationQueueService.enqueue(userId);
+            dataVersionService.bump(userId);
+        }
+        return inserted;
+    }
+
+    @Transactional(readOnly = true)
+    public List<InvoiceView> getInvoicesByUserIdAndStatus(Long userId, InvoiceStatus status) {
         if (status != null) {
-            return invoiceRepository.findByUserIdAndStatus(userId, status);
+            return invoiceRepository.findViewsByUserIdAndStatusIn(userId, List.of(status));
         }
-        return invoiceRepository.findByUserIdAndStatusIn(userId, List.of(InvoiceStatus.values()));
+        return invoiceRepository.findViewsByUserIdAndStatusIn(userId, List.of(InvoiceStatus.values()));
     }
 
-    public List<Invoice> getAllInvoices(Long userId) {
-        return invoiceRepository.findByUserIdAndStatusIn(userId, List.of(InvoiceStatus.values()));
+    @Transactional(readOnly = true)
+    public List<InvoiceView> getAllInvoices(Long userId) {
+        return invoiceRepository.findViewsByUserIdAndStatusIn(userId, List.of(InvoiceStatus.values()));
+    }
+
+    private String validate(Invoice invoice) {
+        if (invoice.getInvoiceNumber() == null || invoice.getInvoiceNumber().isBlank()) {
+            return "Invoice number is required";
+        }
+        if (invoice.getInvoiceNumber().length() > 50) {
+            return "Invoice number must be at most 50 characters";
+        }
+        if (invoice.getCustomerName() == null || invoice.getCustomerName().isBlank()) {
+            return "Customer name is required";
+        }
+        if (invoice.getCustomerName().length() > 200) {
+            return "Customer name must be at most 200 characters";
+        }
+        if (invoice.getTotalAmount() == null || invoice.getTotalAmount().signum() < 0
+            || invoice.getTotalAmount().compareTo(MAX_AMOUNT) > 0) {
+            return "Total amount must be between 0 and " + MAX_AMOUNT;
+        }
+        if (invoice.getPendingAmount() != null
+            && (invoice.getPendingAmount().signum() < 0 || invoice.getPendingAmount().compareTo(invoice.getTotalAmount()) > 0)) {
+            return "Pending amount must be between 0 and the total amount";
+        }
+        if (invoice.getInvoiceDate() == null) {
+            return "Invoice date is required";
+        }
+        return null;
     }
 }
@@ -0,0 +1,113 @@
+package com.mybillbook.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.TreeNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mybillbook.dto.OpenAIMatchResponse;
+import com.mybillbook.exception.OpenAIServiceException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads matches out of a model answer one entry at a time, so an answer cut off at the token
+ * limit or carrying one malformed entry still yields every entry that was complete. An answer
+ * with no matches array, or cut off before its first entry, is an error rather than "no match",
+ * so the payment is retried instead of being passed over.
+ */
+@Slf4j
+final class OpenAIMatchParser {
+
+    private OpenAIMatchParser() {
+    }
+
+    /**
+     * Parses text that should hold {@code {"matches": [...]}} or a bare array, ignoring anything
+     * before it such as a markdown fence.
+     */
+    static List<OpenAIMatchResponse.Match> readMatches(ObjectMapper objectMapper, String text) {
+        int start = text == null ? -1 : indexOfJsonStart(text);
+        if (start < 0) {
+            throw new OpenAIServiceException("AI answer contains no JSON");
+        }
+        JsonParser parser;
+        try {
+            parser = objectMapper.createParser(text.substring(start));
+        } catch (IOException e) {
+            throw new OpenAIServiceException("AI answer could not be read: " + e.getMessage(), e);
+        }
+        return readMatches(parser);
+    }
+
+    static List<OpenAIMatchResponse.Match> readMatches(JsonParser parser) {
+        List<OpenAIMatchResponse.Match> matches = new ArrayList<>();
+
+        try (parser) {
+            if (!moveIntoMatchesArray(parser)) {
+                throw new OpenAIServiceException("AI answer has no matches array");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                TreeNode entry = parser.readValueAsTree();
+                OpenAIMatchResponse.Match match = toMatch(parser, entry);
+                if (match != null) {
+                    matches.add(match);
+                }
+            }
+        } catch (IOException e) {
+            if (matches.isEmpty()) {
+                throw new OpenAIServiceException("AI answer is malformed before its first match: " + e.getMessage(), e);
+            }
+            // The answer stops being JSON here; whatever was complete before it is kept
+            log.warn("AI answer is malformed after {} matches: {}", matches.size(), e.getMessage());
+        }
+        return matches;
+    }
+
+    private static boolean moveIntoMatchesArray(JsonParser parser) throws IOException {
+        JsonToken first = parser.nextToken();
+        if (first == JsonToken.START_ARRAY) {
+            return true;
+        }
+        if (first != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            if (parser.nextToken() == JsonToken.START_ARRAY && "matches".equals(field)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    // Entries without an invoice number or confidence are unusable and skipped on their own
+    private static OpenAIMatchResponse.Match toMatch(JsonParser parser, TreeNode entry) {
+        OpenAIMatchResponse.Match match;
+        try {
+            match = parser.getCodec().treeToValue(entry, OpenAIMatchResponse.Match.class);
+        } catch (JsonProcessingException e) {
+            log.debug("Skipping malformed AI match {}: {}", entry, e.getOriginalMessage());
+            return null;
+        }
+        if (match.getInvoiceNumber() == null || match.getConfidence() == null) {
+            log.debug("Skipping incomplete AI match {}", entry);
+            return null;
+        }
+        return match;
+    }
+
+    private static int indexOfJsonStart(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '{' || c == '[') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
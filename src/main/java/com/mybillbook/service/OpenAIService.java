@@ -1,13 +1,15 @@
 package com.mybillbook.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mybillbook.dto.OpenAIMatchResponse;
 import com.mybillbook.exception.OpenAIServiceException;
 import com.mybillbook.model.Invoice;
 import com.mybillbook.model.Payment;
+import com.theokanning.openai.completion.chat.ChatCompletionChoice;
 import com.theokanning.openai.completion.chat.ChatCompletionRequest;
 import com.theokanning.openai.completion.chat.ChatCompletionResult;
+import com.theokanning.openai.completion.chat.ChatFunctionCall;
 import com.theokanning.openai.completion.chat.ChatMessage;
 import com.theokanning.openai.completion.chat.ChatMessageRole;
 import lombok.RequiredArgsConstructor;
@@ -18,14 +20,38 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class OpenAIService {
 
+    private static final BigDecimal MIN_CONFIDENCE = new BigDecimal("0.60");
+
+    private static final String MATCH_FUNCTION = "report_matches";
+
+    // JSON schema of OpenAIMatchResponse; forcing a call to this function makes the model answer in it
+    private static final Map<String, Object> MATCH_FUNCTION_DEFINITION = Map.of(
+        "name", MATCH_FUNCTION,
+        "description", "Report the invoices the payment most likely settles",
+        "parameters", Map.of(
+            "type", "object",
+            "properties", Map.of(
+                "matches", Map.of(
+                    "type", "array",
+                    "items", Map.of(
+                        "type", "object",
+                        "properties", Map.of(
+                            "invoice_number", Map.of("type", "string"),
+                            "confidence", Map.of("type", "number", "minimum", 0, "maximum", 1),
+                            "reason", Map.of("type", "string")),
+                        "required", List.of("invoice_number", "confidence", "reason")))),
+            "required", List.of("matches")));
+
     private final com.theokanning.openai.service.OpenAiService openAiService;
     private final ObjectMapper objectMapper;
+    private final AiRequestScheduler aiRequestScheduler;
 
     @Value("${openai.model:gpt-4o-mini}")
     private String model;
@@ -40,9 +66,11 @@ public class OpenAIService {
         String prompt = buildPrompt(payment, availableInvoices);
 
         try {
-            ChatCompletionResult result = callOpenAI(prompt);
-            String responseContent = extractResponseContent(result);
-            return parseResponse(responseContent);
+            // Rough token estimate (~4 characters per token) plus the completion allowance
+            long estimatedTokens = prompt.length() / 4 + maxTokens;
+            ChatCompletionResult result = aiRequestScheduler.execute(
+                payment.getUser().getId(), estimatedTokens, () -> callOpenAI(prompt));
+            return parseResponse(result);
         } catch (Exception e) {
             log.error("Error calling OpenAI API for payment ID: {}", payment.getId(), e);
             throw new OpenAIServiceException("Failed to get AI recommendations: " + e.getMessage(), e);
@@ -72,21 +100,9 @@ public class OpenAIService {
             Available Invoices (pending/partially paid):
             %s
 
-            Task: Analyze and return JSON response with:
-            1. Best matching invoice(s)
-            2. Confidence score (0.0 to 1.0)
-            3. Clear reasoning
-
-            Response Format (STRICT JSON):
-            {
-              "matches": [
-                {
-                  "invoice_number": "INV101",
-                  "confidence": 0.92,
-                  "reason": "Remark mentions INV101 explicitly and amount matches half the pending amount"
-                }
-              ]
-            }
+            Task: Report the best matching invoice(s) with report_matches, each with a confidence
+            score (0.0 to 1.0) and clear reasoning, e.g. "Remark mentions INV101 explicitly and
+            amount matches half the pending amount".
 
             Rules:
             - If amount > invoice pending, mention as potential overpayment in reason
@@ -94,7 +110,6 @@ public class OpenAIService {
             - Consider invoice number mentions in remarks
             - If multiple strong matches exist, return all with confidence scores
             - Minimum confidence threshold: 0.60
-            - Return ONLY valid JSON, no additional text
             """,
             payment.getAmount(),
             payment.getPaymentDate(),
@@ -113,51 +128,37 @@ public class OpenAIService {
                 .messages(messages)
                 .maxTokens(maxTokens)
                 .temperature(temperature)
+                .functions(List.of(MATCH_FUNCTION_DEFINITION))
+                .functionCall(ChatCompletionRequest.ChatCompletionRequestFunctionCall.of(MATCH_FUNCTION))
                 .build();
 
         return openAiService.createChatCompletion(request);
     }
 
-    private String extractResponseContent(ChatCompletionResult result) {
+    private OpenAIMatchResponse parseResponse(ChatCompletionResult result) {
         if (result == null || result.getChoices() == null || result.getChoices().isEmpty()) {
             throw new OpenAIServiceException("Empty response from OpenAI");
         }
 
-        String content = result.getChoices().get(0).getMessage().getContent();
-        log.info("OpenAI Response: {}", content);
-
-        // Clean up response - remove markdown code blocks if present
-        content = content.trim();
-        if (content.startsWith("```json")) {
-            content = content.substring(7);
-        }
-        if (content.startsWith("```")) {
-            content = content.substring(3);
-        }
-        if (content.endsWith("```")) {
-            content = content.substring(0, content.length() - 3);
+        ChatCompletionChoice choice = result.getChoices().get(0);
+        ChatFunctionCall functionCall = choice.getMessage().getFunctionCall();
+        JsonNode arguments = functionCall == null ? null : functionCall.getArguments();
+        if (log.isDebugEnabled()) {
+            log.debug("OpenAI response ({}): {}", choice.getFinishReason(),
+                arguments != null ? arguments : choice.getMessage().getContent());
         }
 
-        return content.trim();
-    }
-
-    private OpenAIMatchResponse parseResponse(String jsonResponse) {
-        try {
-            OpenAIMatchResponse response = objectMapper.readValue(jsonResponse, OpenAIMatchResponse.class);
-
-            // Filter out low confidence matches
-            if (response.getMatches() != null) {
-                response.setMatches(
-                    response.getMatches().stream()
-                        .filter(m -> m.getConfidence().compareTo(new BigDecimal("0.60")) >= 0)
-                        .toList()
-                );
-            }
-
-            return response;
-        } catch (JsonProcessingException e) {
-            log.error("Failed to parse OpenAI response: {}", jsonResponse, e);
-            throw new OpenAIServiceException("Invalid JSON response from AI: " + e.getMessage(), e);
+        List<OpenAIMatchResponse.Match> matches;
+        if (arguments != null && arguments.isContainerNode()) {
+            matches = OpenAIMatchParser.readMatches(arguments.traverse(objectMapper));
+        } else {
+            // Arguments that are not valid JSON, e.g. cut off at max-tokens, arrive as their raw text
+            String text = arguments != null ? arguments.asText() : choice.getMessage().getContent();
+            matches = OpenAIMatchParser.readMatches(objectMapper, text);
         }
+
+        return new OpenAIMatchResponse(matches.stream()
+            .filter(m -> m.getConfidence().compareTo(MIN_CONFIDENCE) >= 0)
+            .toList());
     }
 }
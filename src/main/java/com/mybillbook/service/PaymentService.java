@@ -1,6 +1,10 @@
 package com.mybillbook.service;
 
+import com.mybillbook.dto.PaymentView;
+import com.mybillbook.dto.UploadResult;
 import com.mybillbook.enums.PaymentStatus;
+import com.mybillbook.enums.UploadType;
+import com.mybillbook.model.Money;
 import com.mybillbook.model.Payment;
 import com.mybillbook.model.User;
 import com.mybillbook.repository.PaymentRepository;
@@ -9,37 +13,118 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class PaymentService {
 
+    private static final Money MAX_AMOUNT = Money.of("99999999.99");
+
     private final PaymentRepository paymentRepository;
+    private final ReconciliationQueueService reconciliationQueueService;
+    private final DataVersionService dataVersionService;
+    private final UploadBatchService uploadBatchService;
+
+    /**
+     * Stores the valid payments of an upload. Identical payments are legitimate (the same amount
+     * paid twice on one day), so only uploads sent with an {@code Idempotency-Key} are deduplicated:
+     * each row is hashed from its content and how often that content occurred earlier in the
+     * upload, and a user never gets the same hash twice. Resending the upload, after a failure or
+     * under a new key, skips the payments already stored and keeps real repeats within it.
+     */
+    public UploadResult uploadPayments(List<Payment> payments, User user, String batchKey) {
+        return uploadBatchService.runOnce(user.getId(), UploadType.PAYMENTS, batchKey,
+            () -> storePayments(payments, user, batchKey != null));
+    }
+
+    private UploadResult storePayments(List<Payment> payments, User user, boolean hashRows) {
+        List<UploadResult.RowError> errors = new ArrayList<>();
+        Map<String, Integer> occurrences = new HashMap<>();
+        List<Payment> candidates = new ArrayList<>();
+
+        for (int row = 1; row <= payments.size(); row++) {
+            Payment payment = payments.get(row - 1);
+            String error = validate(payment);
+            if (error != null) {
+                errors.add(new UploadResult.RowError(row, error));
+                continue;
+            }
 
-    @Transactional
-    public List<Payment> uploadPayments(List<Payment> payments, User user) {
-        payments.forEach(payment -> {
-            payment.setUser(user);
+            if (hashRows) {
+                String content = contentOf(payment);
+                int occurrence = occurrences.merge(content, 1, Integer::sum);
+                payment.setRowHash(UploadBatchService.sha256(content + "#" + occurrence));
+            }
             if (payment.getStatus() == null) {
                 payment.setStatus(PaymentStatus.UNRECONCILED);
             }
-        });
+            candidates.add(payment);
+        }
 
-        List<Payment> saved = paymentRepository.saveAll(payments);
-        log.info("Uploaded {} payments for user {}", saved.size(), user.getId());
-        return saved;
+        int uploaded = uploadBatchService.insertInChunks(candidates, chunk -> insertChunk(chunk, user.getId()));
+        int skipped = candidates.size() - uploaded;
+        log.info("Uploaded {} payments for user {} ({} already present, {} invalid)",
+            uploaded, user.getId(), skipped, errors.size());
+        return new UploadResult(uploaded, skipped, errors.size(), errors, false);
     }
 
-    public List<Payment> getPaymentsByUserIdAndStatus(Long userId, PaymentStatus status) {
+    private int insertChunk(List<Payment> chunk, Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        int inserted = 0;
+        for (Payment payment : chunk) {
+            inserted += paymentRepository.insertIfAbsent(userId, payment.getAmount().toBigDecimal(),
+                payment.getPaymentDate(), payment.getPaymentMode().name(), payment.getRemark(),
+                payment.getStatus().name(), payment.getRowHash(), now);
+        }
+
+        if (inserted > 0) {
+            // Reconcile the new data in the background instead of waiting for a manual run
+            reconciliationQueueService.enqueue(userId);
+            dataVersionService.bump(userId);
+        }
+        return inserted;
+    }
+
+    @Transactional(readOnly = true)
+    public List<PaymentView> getPaymentsByUserIdAndStatus(Long userId, PaymentStatus status) {
         if (status != null) {
-            return paymentRepository.findByUserIdAndStatus(userId, status);
+            return paymentRepository.findViewsByUserIdAndStatus(userId, status);
+        }
+        return paymentRepository.findViewsByUserId(userId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<PaymentView> getAllPayments(Long userId) {
+        return paymentRepository.findViewsByUserId(userId);
+    }
+
+    private String validate(Payment payment) {
+        if (payment.getAmount() == null || payment.getAmount().signum() <= 0) {
+            return "Amount must be greater than zero";
+        }
+        if (payment.getAmount().compareTo(MAX_AMOUNT) > 0) {
+            return "Amount must not exceed " + MAX_AMOUNT;
+        }
+        if (payment.getPaymentDate() == null) {
+            return "Payment date is required";
+        }
+        if (payment.getPaymentMode() == null) {
+            return "Payment mode is required";
         }
-        return paymentRepository.findByUserId(userId);
+        return null;
     }
 
-    public List<Payment> getAllPayments(Long userId) {
-        return paymentRepository.findByUserId(userId);
+    private String contentOf(Payment payment) {
+        String remark = payment.getRemark() == null ? "" : payment.getRemark().trim();
+        return payment.getAmount().toBigDecimal().stripTrailingZeros().toPlainString()
+            + "|" + payment.getPaymentDate()
+            + "|" + payment.getPaymentMode()
+            + "|" + remark;
     }
 }
@@ -0,0 +1,112 @@
+package com.mybillbook.service;
+
+import com.mybillbook.enums.ReconciliationJobStatus;
+import com.mybillbook.model.ReconciliationJob;
+import com.mybillbook.repository.ReconciliationJobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Database-backed queue of users whose data changed and needs reconciling. Jobs are written in
+ * the same transaction as the upload that caused them, so they survive restarts.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReconciliationQueueService {
+
+    private final ReconciliationJobRepository jobRepository;
+
+    // Read at runtime as well: AOT and native builds fix the worker's condition at build time
+    @Value("${reconciliation.queue.enabled:false}")
+    private boolean enabled;
+
+    @Value("${reconciliation.queue.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${reconciliation.queue.retry-backoff-seconds:60}")
+    private long retryBackoffSeconds;
+
+    @Value("${reconciliation.queue.lock-timeout-minutes:30}")
+    private long lockTimeoutMinutes;
+
+    @Value("${reconciliation.queue.done-retention-days:7}")
+    private long doneRetentionDays;
+
+    @Transactional
+    public void enqueue(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        // A queued job already covers everything uploaded before it starts running
+        if (jobRepository.insertQueuedIfAbsent(userId, LocalDateTime.now()) > 0) {
+            log.debug("Queued reconciliation for user {}", userId);
+        }
+    }
+
+    @Transactional
+    public List<ReconciliationJob> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+
+        LocalDateTime cutoff = now.minusMinutes(lockTimeoutMinutes);
+        int requeued = jobRepository.requeueStale(cutoff, now);
+        int closed = jobRepository.closeStale(cutoff, "Abandoned by its worker; superseded by a queued job",
+            ReconciliationJobStatus.RUNNING, ReconciliationJobStatus.FAILED);
+        if (requeued + closed > 0) {
+            log.warn("Recovered {} reconciliation jobs abandoned by their workers ({} requeued)", requeued + closed, requeued);
+        }
+
+        List<ReconciliationJob> jobs = jobRepository.lockDueJobs(now, limit);
+        jobs.forEach(job -> {
+            job.setStatus(ReconciliationJobStatus.RUNNING);
+            job.setLockedAt(now);
+            job.setAttempts(job.getAttempts() + 1);
+        });
+        return jobRepository.saveAll(jobs);
+    }
+
+    @Transactional
+    public void complete(Long jobId) {
+        jobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(ReconciliationJobStatus.DONE);
+            job.setLockedAt(null);
+            job.setLastError(null);
+        });
+    }
+
+    @Transactional
+    public void fail(Long jobId, String error) {
+        jobRepository.findById(jobId).ifPresent(job -> {
+            job.setLockedAt(null);
+            job.setLastError(error);
+            if (job.getAttempts() >= maxAttempts) {
+                job.setStatus(ReconciliationJobStatus.FAILED);
+                log.error("Reconciliation job {} for user {} failed permanently: {}", jobId, job.getUserId(), error);
+            } else if (jobRepository.existsByUserIdAndStatus(job.getUserId(), ReconciliationJobStatus.QUEUED)) {
+                // Only one job per user may be queued, and the one already waiting covers this retry
+                job.setStatus(ReconciliationJobStatus.FAILED);
+                log.info("Reconciliation job {} for user {} failed; retry left to the queued job", jobId, job.getUserId());
+            } else {
+                job.setStatus(ReconciliationJobStatus.QUEUED);
+                job.setAvailableAt(LocalDateTime.now().plusSeconds(retryBackoffSeconds * job.getAttempts()));
+            }
+        });
+    }
+
+    // Finished jobs carry nothing worth keeping; failed ones stay for diagnosis
+    @Transactional
+    public int purgeCompleted() {
+        int purged = jobRepository.deleteByStatusAndUpdatedAtBefore(ReconciliationJobStatus.DONE,
+            LocalDateTime.now().minusDays(doneRetentionDays));
+        if (purged > 0) {
+            log.info("Purged {} completed reconciliation jobs", purged);
+        }
+        return purged;
+    }
+}
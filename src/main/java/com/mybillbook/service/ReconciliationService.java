@@ -1,53 +1,198 @@
 package com.mybillbook.service;
 
 import com.mybillbook.dto.OpenAIMatchResponse;
+import com.mybillbook.dto.SuggestionView;
 import com.mybillbook.enums.InvoiceStatus;
+import com.mybillbook.enums.MatchType;
 import com.mybillbook.enums.PaymentStatus;
 import com.mybillbook.enums.SuggestionStatus;
 import com.mybillbook.exception.ResourceNotFoundException;
 import com.mybillbook.model.Invoice;
+import com.mybillbook.model.Money;
 import com.mybillbook.model.Payment;
 import com.mybillbook.model.ReconciliationSuggestion;
+import com.mybillbook.model.ReconciliationWatermark;
 import com.mybillbook.model.User;
 import com.mybillbook.repository.InvoiceRepository;
 import com.mybillbook.repository.PaymentRepository;
 import com.mybillbook.repository.ReconciliationSuggestionRepository;
+import com.mybillbook.repository.ReconciliationWatermarkRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class ReconciliationService {
 
+    private static final String SPLIT_ALLOCATION_MODEL = "local-subset-sum";
+    private static final String INSTALMENT_AGGREGATION_MODEL = "local-instalment-sum";
+    private static final List<InvoiceStatus> PENDING_INVOICE_STATUSES =
+        List.of(InvoiceStatus.UNPAID, InvoiceStatus.PARTIALLY_PAID);
+
+    // A single exact combination is a strong signal; alternatives compete with each other
+    private static final BigDecimal SINGLE_SPLIT_CONFIDENCE = new BigDecimal("0.90");
+    private static final BigDecimal ALTERNATIVE_SPLIT_CONFIDENCE = new BigDecimal("0.75");
+    private static final BigDecimal INSTALMENT_CONFIDENCE = new BigDecimal("0.85");
+
     private final OpenAIService openAIService;
+    private final SplitAllocationMatcher splitAllocationMatcher;
+    private final InstalmentAggregationMatcher instalmentAggregationMatcher;
     private final PaymentRepository paymentRepository;
     private final InvoiceRepository invoiceRepository;
     private final ReconciliationSuggestionRepository suggestionRepository;
+    private final ReconciliationWatermarkRepository watermarkRepository;
+    private final DataVersionService dataVersionService;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${openai.model:gpt-4o-mini}")
     private String aiModel;
 
-    @Transactional
+    @Value("${reconciliation.confirm.max-attempts:3}")
+    private int confirmMaxAttempts;
+
+    @Value("${reconciliation.confirm.retry-backoff-ms:25}")
+    private long confirmRetryBackoffMs;
+
     public int runReconciliation(Long userId) {
-        log.info("Starting AI reconciliation for user: {}", userId);
+        return runReconciliation(userId, false);
+    }
+
+    /**
+     * Runs in phases so no connection is held across OpenAI round trips: one short transaction
+     * loads the payments and invoices to match, AI calls then run outside any transaction, and
+     * suggestions are written in short transactions as results come in.
+     */
+    public int runReconciliation(Long userId, boolean incremental) {
+        log.info("Starting {} AI reconciliation for user: {}", incremental ? "incremental" : "full", userId);
+
+        // Read-write so the snapshot comes from the primary and includes rows uploaded moments ago
+        ReconciliationSnapshot snapshot = transactionTemplate.execute(status -> loadSnapshot(userId, incremental));
+
+        int suggestionsGenerated = 0;
+        Set<Long> failedPaymentIds = new HashSet<>();
+        for (MatchSet matchSet : snapshot.matchSets()) {
+            suggestionsGenerated += reconcile(userId, matchSet, snapshot.paymentsWithPendingSuggestions(), failedPaymentIds);
+        }
+
+        advanceWatermark(userId, snapshot, failedPaymentIds);
+
+        log.info("Reconciliation completed. Generated {} suggestions for user {}", suggestionsGenerated, userId);
+        return suggestionsGenerated;
+    }
+
+    private record MatchSet(List<Payment> payments, List<Invoice> invoices) {
+    }
+
+    /**
+     * {@code coveredPaymentId} and {@code coveredInvoicesUpdatedAt} are what the run started from:
+     * the stored watermark for an incremental run, nothing for a full one.
+     */
+    private record ReconciliationSnapshot(List<MatchSet> matchSets, Set<Long> paymentsWithPendingSuggestions,
+                                          Long maxPaymentId, LocalDateTime maxInvoiceUpdatedAt,
+                                          long coveredPaymentId, LocalDateTime coveredInvoicesUpdatedAt) {
+    }
+
+    private ReconciliationSnapshot loadSnapshot(Long userId, boolean incremental) {
+        Optional<ReconciliationWatermark> watermark = watermarkRepository.findById(userId);
+
+        // Capture the new high-water marks up front so data arriving mid-run is picked up by the next run
+        Long maxPaymentId = paymentRepository.findMaxIdByUserId(userId);
+        LocalDateTime maxInvoiceUpdatedAt = invoiceRepository.findMaxUpdatedAtByUserId(userId);
+
+        List<MatchSet> matchSets;
+        long coveredPaymentId = 0L;
+        LocalDateTime coveredInvoicesUpdatedAt = null;
+        if (incremental && watermark.isPresent()) {
+            matchSets = loadIncrementalMatchSets(userId, watermark.get());
+            coveredPaymentId = watermark.get().getLastPaymentId();
+            coveredInvoicesUpdatedAt = watermark.get().getInvoicesUpdatedAt();
+        } else {
+            // All unreconciled payments against all pending invoices (UNPAID or PARTIALLY_PAID)
+            matchSets = List.of(new MatchSet(
+                paymentRepository.findByUserIdAndStatus(userId, PaymentStatus.UNRECONCILED),
+                invoiceRepository.findByUserIdAndStatusIn(userId, PENDING_INVOICE_STATUSES)));
+        }
 
-        // Fetch all unreconciled payments for this user
-        List<Payment> unreconciledPayments = paymentRepository.findByUserIdAndStatus(userId, PaymentStatus.UNRECONCILED);
+        Set<Long> paymentsWithPendingSuggestions =
+            suggestionRepository.findPaymentIdsByUserIdAndStatus(userId, SuggestionStatus.PENDING);
+        return new ReconciliationSnapshot(matchSets, paymentsWithPendingSuggestions, maxPaymentId, maxInvoiceUpdatedAt,
+            coveredPaymentId, coveredInvoicesUpdatedAt);
+    }
+
+    /**
+     * New payments are matched against every pending invoice, while payments already seen by an
+     * earlier run are only re-examined against invoices that were added or changed since then.
+     */
+    private List<MatchSet> loadIncrementalMatchSets(Long userId, ReconciliationWatermark watermark) {
+        List<MatchSet> matchSets = new ArrayList<>();
+
+        List<Payment> newPayments = paymentRepository.findByUserIdAndStatusAndIdGreaterThan(
+            userId, PaymentStatus.UNRECONCILED, watermark.getLastPaymentId());
+        if (!newPayments.isEmpty()) {
+            matchSets.add(new MatchSet(newPayments,
+                invoiceRepository.findByUserIdAndStatusIn(userId, PENDING_INVOICE_STATUSES)));
+        }
+
+        List<Invoice> changedInvoices = watermark.getInvoicesUpdatedAt() == null
+            ? invoiceRepository.findByUserIdAndStatusIn(userId, PENDING_INVOICE_STATUSES)
+            : invoiceRepository.findByUserIdAndStatusInAndUpdatedAtAfter(
+                userId, PENDING_INVOICE_STATUSES, watermark.getInvoicesUpdatedAt());
+        if (!changedInvoices.isEmpty()) {
+            matchSets.add(new MatchSet(paymentRepository.findByUserIdAndStatusAndIdLessThanEqual(
+                userId, PaymentStatus.UNRECONCILED, watermark.getLastPaymentId()), changedInvoices));
+        }
+
+        log.info("Incremental run for user {} considered {} new payments and {} changed invoices",
+            userId, newPayments.size(), changedInvoices.size());
+        return matchSets;
+    }
+
+    /**
+     * Moves the watermark past everything this run handled, but stops short of payments whose AI
+     * call failed so the next incremental run tries them again. A failed new payment caps the
+     * payment mark just below it; a failed older payment holds the invoice mark back, so the
+     * changed invoices it was matched against are offered to it once more.
+     */
+    private void advanceWatermark(Long userId, ReconciliationSnapshot snapshot, Set<Long> failedPaymentIds) {
+        long lastPaymentId = snapshot.maxPaymentId() != null ? snapshot.maxPaymentId() : snapshot.coveredPaymentId();
+        LocalDateTime invoicesUpdatedAt = snapshot.maxInvoiceUpdatedAt();
+
+        for (Long failedPaymentId : failedPaymentIds) {
+            if (failedPaymentId > snapshot.coveredPaymentId()) {
+                lastPaymentId = Math.min(lastPaymentId, failedPaymentId - 1);
+            } else {
+                invoicesUpdatedAt = snapshot.coveredInvoicesUpdatedAt();
+            }
+        }
+        if (!failedPaymentIds.isEmpty()) {
+            log.info("Holding reconciliation watermark for user {} at payment {} to retry {} failed payments",
+                userId, lastPaymentId, failedPaymentIds.size());
+        }
 
-        // Fetch all pending invoices (UNPAID or PARTIALLY_PAID)
-        List<Invoice> pendingInvoices = invoiceRepository.findByUserIdAndStatusIn(
-            userId,
-            List.of(InvoiceStatus.UNPAID, InvoiceStatus.PARTIALLY_PAID)
-        );
+        watermarkRepository.upsert(userId, lastPaymentId, invoicesUpdatedAt);
+    }
 
+    private int reconcile(Long userId, MatchSet matchSet, Set<Long> paymentsWithPendingSuggestions,
+                          Set<Long> failedPaymentIds) {
+        List<Payment> unreconciledPayments = matchSet.payments();
+        List<Invoice> pendingInvoices = matchSet.invoices();
         if (unreconciledPayments.isEmpty()) {
             log.info("No unreconciled payments found for user: {}", userId);
             return 0;
@@ -58,63 +203,153 @@ public class ReconciliationService {
             return 0;
         }
 
-        int suggestionsGenerated = 0;
+        // Skip payments that already have pending suggestions
+        List<Payment> paymentsToMatch = unreconciledPayments.stream()
+            .filter(payment -> !paymentsWithPendingSuggestions.contains(payment.getId()))
+            .toList();
+        if (paymentsToMatch.size() < unreconciledPayments.size()) {
+            log.info("Skipping {} payments that already have pending suggestions",
+                unreconciledPayments.size() - paymentsToMatch.size());
+        }
 
-        // Process each unreconciled payment
-        for (Payment payment : unreconciledPayments) {
-            try {
-                // Skip if this payment already has pending suggestions
-                boolean hasPendingSuggestion = suggestionRepository.existsByPaymentIdAndStatus(
-                    payment.getId(), SuggestionStatus.PENDING);
+        // Instalment and split matches are found locally and written together in one transaction
+        List<ReconciliationSuggestion> localSuggestions = new ArrayList<>();
+        List<Payment> paymentsForAi = new ArrayList<>();
 
-                if (hasPendingSuggestion) {
-                    log.info("Skipping payment {} - already has pending suggestions", payment.getId());
-                    continue;
-                }
+        // Invoices paid off in several instalments are resolved before per-payment matching
+        Set<Long> aggregatedPaymentIds = new HashSet<>();
+        for (InstalmentAggregationMatcher.InstalmentAggregation aggregation :
+                instalmentAggregationMatcher.findAggregations(paymentsToMatch, pendingInvoices)) {
+            localSuggestions.addAll(instalmentAggregationSuggestions(aggregation));
+            aggregation.payments().forEach(payment -> aggregatedPaymentIds.add(payment.getId()));
+        }
 
-                OpenAIMatchResponse aiResponse = openAIService.findMatchingInvoices(payment, pendingInvoices);
+        for (Payment payment : paymentsToMatch) {
+            if (aggregatedPaymentIds.contains(payment.getId())) {
+                continue;
+            }
+
+            // Payments that exactly settle several invoices of one customer are resolved locally
+            List<SplitAllocationMatcher.SplitAllocation> allocations =
+                splitAllocationMatcher.findAllocations(payment, pendingInvoices);
+            if (allocations.isEmpty()) {
+                paymentsForAi.add(payment);
+            } else {
+                localSuggestions.addAll(splitAllocationSuggestions(payment, allocations));
+            }
+        }
+
+        if (!localSuggestions.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                suggestionRepository.saveAll(localSuggestions);
+                dataVersionService.bump(userId);
+            });
+        }
+        int suggestionsGenerated = localSuggestions.size();
 
-                if (aiResponse.getMatches() != null && !aiResponse.getMatches().isEmpty()) {
-                    for (OpenAIMatchResponse.Match match : aiResponse.getMatches()) {
-                        // Find the invoice by invoice number
-                        Invoice matchedInvoice = findInvoiceByNumber(pendingInvoices, match.getInvoiceNumber());
-
-                        if (matchedInvoice != null) {
-                            // Create suggestion
-                            ReconciliationSuggestion suggestion = new ReconciliationSuggestion();
-                            suggestion.setPayment(payment);
-                            suggestion.setInvoice(matchedInvoice);
-                            suggestion.setConfidence(match.getConfidence());
-                            suggestion.setReasoning(match.getReason());
-                            suggestion.setStatus(SuggestionStatus.PENDING);
-                            suggestion.setAiModel(aiModel);
-
-                            suggestionRepository.save(suggestion);
-                            suggestionsGenerated++;
-                            log.info("Created suggestion: Payment {} -> Invoice {} (confidence: {})",
-                                payment.getId(), matchedInvoice.getInvoiceNumber(), match.getConfidence());
-                        }
-                    }
+        for (Payment payment : paymentsForAi) {
+            try {
+                // No transaction is open here, so the round trip does not pin a connection
+                OpenAIMatchResponse aiResponse = openAIService.findMatchingInvoices(payment, pendingInvoices);
+                List<ReconciliationSuggestion> suggestions = aiSuggestions(payment, aiResponse, pendingInvoices);
+                if (!suggestions.isEmpty()) {
+                    suggestionsGenerated += transactionTemplate.execute(status -> saveUnlessAlreadySuggested(userId, payment, suggestions));
                 }
             } catch (Exception e) {
                 log.error("Failed to process payment {}: {}", payment.getId(), e.getMessage());
-                // Continue processing other payments
+                // Continue processing other payments; this one is retried by the next run
+                failedPaymentIds.add(payment.getId());
             }
         }
 
-        log.info("Reconciliation completed. Generated {} suggestions for user {}", suggestionsGenerated, userId);
         return suggestionsGenerated;
     }
 
-    @Transactional
+    private List<ReconciliationSuggestion> aiSuggestions(Payment payment, OpenAIMatchResponse aiResponse,
+                                                         List<Invoice> pendingInvoices) {
+        if (aiResponse.getMatches() == null) {
+            return List.of();
+        }
+
+        List<ReconciliationSuggestion> suggestions = new ArrayList<>();
+        for (OpenAIMatchResponse.Match match : aiResponse.getMatches()) {
+            // Find the invoice by invoice number
+            Invoice matchedInvoice = findInvoiceByNumber(pendingInvoices, match.getInvoiceNumber());
+
+            if (matchedInvoice != null) {
+                ReconciliationSuggestion suggestion = new ReconciliationSuggestion();
+                suggestion.setPayment(payment);
+                suggestion.setInvoice(matchedInvoice);
+                suggestion.setConfidence(match.getConfidence());
+                suggestion.setReasoning(match.getReason());
+                suggestion.setStatus(SuggestionStatus.PENDING);
+                suggestion.setAiModel(aiModel);
+                suggestions.add(suggestion);
+            }
+        }
+        return suggestions;
+    }
+
+    // The AI call can take seconds, long enough for a concurrent run to have covered the payment
+    private int saveUnlessAlreadySuggested(Long userId, Payment payment, List<ReconciliationSuggestion> suggestions) {
+        if (suggestionRepository.existsByPaymentIdAndStatus(payment.getId(), SuggestionStatus.PENDING)) {
+            log.info("Payment {} received suggestions from another run, discarding AI matches", payment.getId());
+            return 0;
+        }
+
+        suggestionRepository.saveAll(suggestions);
+        dataVersionService.bump(userId);
+        suggestions.forEach(suggestion -> log.info("Created suggestion: Payment {} -> Invoice {} (confidence: {})",
+            payment.getId(), suggestion.getInvoice().getInvoiceNumber(), suggestion.getConfidence()));
+        return suggestions.size();
+    }
+
+    /**
+     * Confirms a suggestion in its own transaction. Invoice, payment and suggestion rows are
+     * versioned, so a confirmation racing another one on the same rows is retried against
+     * fresh balances instead of overwriting them.
+     */
     public void confirmSuggestion(Long suggestionId, Long userId) {
-        ReconciliationSuggestion suggestion = suggestionRepository.findById(suggestionId)
+        retryOnConflict(() -> doConfirmSuggestion(suggestionId, userId));
+    }
+
+    private void doConfirmSuggestion(Long suggestionId, Long userId) {
+        ReconciliationSuggestion suggestion = suggestionRepository.findWithPaymentAndInvoiceById(suggestionId)
             .orElseThrow(() -> new ResourceNotFoundException("Suggestion not found with ID: " + suggestionId));
 
         if (suggestion.getStatus() != SuggestionStatus.PENDING) {
             throw new IllegalStateException("Only pending suggestions can be confirmed");
         }
 
+        if (suggestion.getAllocationGroup() != null) {
+            confirmAllocationGroup(suggestion.getAllocationGroup(), userId);
+        } else {
+            confirm(suggestion, userId);
+        }
+        dataVersionService.bump(suggestion.getPayment().getUser().getId());
+    }
+
+    private void confirmAllocationGroup(String allocationGroup, Long userId) {
+        List<ReconciliationSuggestion> members =
+            suggestionRepository.findByAllocationGroupAndStatus(allocationGroup, SuggestionStatus.PENDING);
+        members.forEach(member -> confirm(member, userId));
+
+        // The payments are now fully allocated, so competing suggestions for them are obsolete
+        Set<Long> memberIds = members.stream().map(ReconciliationSuggestion::getId).collect(Collectors.toSet());
+        members.stream()
+            .map(member -> member.getPayment().getId())
+            .distinct()
+            .flatMap(paymentId -> suggestionRepository.findByPaymentIdAndStatus(paymentId, SuggestionStatus.PENDING).stream())
+            .filter(other -> !memberIds.contains(other.getId()))
+            .forEach(other -> {
+                other.setStatus(SuggestionStatus.REJECTED);
+                suggestionRepository.save(other);
+            });
+
+        log.info("Confirmed allocation group {} with {} suggestions", allocationGroup, members.size());
+    }
+
+    private void confirm(ReconciliationSuggestion suggestion, Long userId) {
         // Update suggestion status
         suggestion.setStatus(SuggestionStatus.CONFIRMED);
         User user = new User();
@@ -129,10 +364,13 @@ public class ReconciliationService {
 
         // Update invoice pending amount and status
         Invoice invoice = suggestion.getInvoice();
-        BigDecimal newPendingAmount = invoice.getPendingAmount().subtract(payment.getAmount());
+        Money appliedAmount = suggestion.getAllocatedAmount() != null
+            ? suggestion.getAllocatedAmount()
+            : payment.getAmount();
+        Money newPendingAmount = invoice.getPendingAmount().minus(appliedAmount);
 
-        if (newPendingAmount.compareTo(BigDecimal.ZERO) <= 0) {
-            invoice.setPendingAmount(BigDecimal.ZERO);
+        if (newPendingAmount.signum() <= 0) {
+            invoice.setPendingAmount(Money.ZERO);
             invoice.setStatus(InvoiceStatus.FULLY_PAID);
         } else {
             invoice.setPendingAmount(newPendingAmount);
@@ -142,11 +380,14 @@ public class ReconciliationService {
         invoiceRepository.save(invoice);
 
         log.info("Confirmed suggestion {}: Payment {} -> Invoice {}, New pending: ₹{}",
-            suggestionId, payment.getId(), invoice.getInvoiceNumber(), invoice.getPendingAmount());
+            suggestion.getId(), payment.getId(), invoice.getInvoiceNumber(), invoice.getPendingAmount());
     }
 
-    @Transactional
     public void rejectSuggestion(Long suggestionId) {
+        retryOnConflict(() -> doRejectSuggestion(suggestionId));
+    }
+
+    private void doRejectSuggestion(Long suggestionId) {
         ReconciliationSuggestion suggestion = suggestionRepository.findById(suggestionId)
             .orElseThrow(() -> new ResourceNotFoundException("Suggestion not found with ID: " + suggestionId));
 
@@ -154,13 +395,22 @@ public class ReconciliationService {
             throw new IllegalStateException("Only pending suggestions can be rejected");
         }
 
-        suggestion.setStatus(SuggestionStatus.REJECTED);
-        suggestionRepository.save(suggestion);
-
-        log.info("Rejected suggestion {}", suggestionId);
+        if (suggestion.getAllocationGroup() != null) {
+            // A split allocation is only valid as a whole
+            List<ReconciliationSuggestion> members = suggestionRepository.findByAllocationGroupAndStatus(
+                suggestion.getAllocationGroup(), SuggestionStatus.PENDING);
+            members.forEach(member -> member.setStatus(SuggestionStatus.REJECTED));
+            suggestionRepository.saveAll(members);
+            log.info("Rejected allocation group {} with {} suggestions", suggestion.getAllocationGroup(), members.size());
+        } else {
+            suggestion.setStatus(SuggestionStatus.REJECTED);
+            suggestionRepository.save(suggestion);
+            log.info("Rejected suggestion {}", suggestionId);
+        }
+        dataVersionService.bump(suggestion.getPayment().getUser().getId());
     }
 
-    @Transactional
+    // Each confirmation commits on its own, so one conflicting row never rolls back the rest
     public int bulkConfirm(List<Long> suggestionIds, Long userId) {
         int confirmed = 0;
 
@@ -177,26 +427,98 @@ public class ReconciliationService {
         return confirmed;
     }
 
-    @Transactional
     public int bulkConfirmHighConfidence(BigDecimal minConfidence, Long userId) {
-        List<ReconciliationSuggestion> highConfidenceSuggestions =
-            suggestionRepository.findByConfidenceGreaterThanEqualAndStatus(minConfidence, SuggestionStatus.PENDING);
-
-        List<Long> suggestionIds = highConfidenceSuggestions.stream()
-            .map(ReconciliationSuggestion::getId)
-            .toList();
+        List<Long> suggestionIds = suggestionRepository.findIdsByUserIdAndStatusAndMinConfidence(
+            userId, SuggestionStatus.PENDING, minConfidence);
 
         return bulkConfirm(suggestionIds, userId);
     }
 
-    public List<ReconciliationSuggestion> getPendingSuggestions(Long userId) {
-        // Get all pending suggestions
-        List<ReconciliationSuggestion> allPending = suggestionRepository.findByStatus(SuggestionStatus.PENDING);
+    private void retryOnConflict(Runnable work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> work.run());
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= confirmMaxAttempts) {
+                    throw e;
+                }
+                log.debug("Concurrent update on attempt {}, retrying: {}", attempt, e.getMessage());
+                try {
+                    // Jittered linear backoff so racing confirmations do not collide again in lockstep
+                    Thread.sleep(confirmRetryBackoffMs * attempt + ThreadLocalRandom.current().nextLong(confirmRetryBackoffMs + 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<SuggestionView> getPendingSuggestions(Long userId) {
+        return suggestionRepository.findViewsByUserIdAndStatus(userId, SuggestionStatus.PENDING);
+    }
 
-        // Filter by userId (check if payment belongs to user)
-        return allPending.stream()
-            .filter(s -> s.getPayment().getUser().getId().equals(userId))
-            .toList();
+    private List<ReconciliationSuggestion> splitAllocationSuggestions(Payment payment,
+                                                                      List<SplitAllocationMatcher.SplitAllocation> allocations) {
+        BigDecimal confidence = allocations.size() == 1 ? SINGLE_SPLIT_CONFIDENCE : ALTERNATIVE_SPLIT_CONFIDENCE;
+        List<ReconciliationSuggestion> suggestions = new ArrayList<>();
+
+        for (SplitAllocationMatcher.SplitAllocation allocation : allocations) {
+            String allocationGroup = UUID.randomUUID().toString();
+            String invoiceNumbers = allocation.invoices().stream()
+                .map(Invoice::getInvoiceNumber)
+                .collect(Collectors.joining(", "));
+            String reasoning = String.format(
+                "Payment of ₹%s exactly settles the combined pending amount of %s for %s, whose name appears in the remark",
+                payment.getAmount(), invoiceNumbers, allocation.customerName());
+
+            for (Invoice invoice : allocation.invoices()) {
+                ReconciliationSuggestion suggestion = new ReconciliationSuggestion();
+                suggestion.setPayment(payment);
+                suggestion.setInvoice(invoice);
+                suggestion.setConfidence(confidence);
+                suggestion.setReasoning(reasoning);
+                suggestion.setStatus(SuggestionStatus.PENDING);
+                suggestion.setAiModel(SPLIT_ALLOCATION_MODEL);
+                suggestion.setMatchType(MatchType.SPLIT_ALLOCATION);
+                suggestion.setAllocatedAmount(invoice.getPendingAmount());
+                suggestion.setAllocationGroup(allocationGroup);
+                suggestions.add(suggestion);
+            }
+            log.info("Found split allocation {}: Payment {} -> Invoices [{}]",
+                allocationGroup, payment.getId(), invoiceNumbers);
+        }
+
+        return suggestions;
+    }
+
+    private List<ReconciliationSuggestion> instalmentAggregationSuggestions(InstalmentAggregationMatcher.InstalmentAggregation aggregation) {
+        Invoice invoice = aggregation.invoice();
+        String allocationGroup = UUID.randomUUID().toString();
+        String reasoning = String.format(
+            "%d payments attributed to %s add up exactly to the pending amount of ₹%s on %s",
+            aggregation.payments().size(), invoice.getCustomerName(), invoice.getPendingAmount(), invoice.getInvoiceNumber());
+
+        List<ReconciliationSuggestion> suggestions = new ArrayList<>();
+        for (Payment payment : aggregation.payments()) {
+            ReconciliationSuggestion suggestion = new ReconciliationSuggestion();
+            suggestion.setPayment(payment);
+            suggestion.setInvoice(invoice);
+            suggestion.setConfidence(INSTALMENT_CONFIDENCE);
+            suggestion.setReasoning(reasoning);
+            suggestion.setStatus(SuggestionStatus.PENDING);
+            suggestion.setAiModel(INSTALMENT_AGGREGATION_MODEL);
+            suggestion.setMatchType(MatchType.INSTALMENT_AGGREGATION);
+            suggestion.setAllocatedAmount(payment.getAmount());
+            suggestion.setAllocationGroup(allocationGroup);
+            suggestions.add(suggestion);
+        }
+
+        log.info("Found instalment aggregation {}: {} payments -> Invoice {}",
+            allocationGroup, aggregation.payments().size(), invoice.getInvoiceNumber());
+        return suggestions;
     }
 
     private Invoice findInvoiceByNumber(List<Invoice> invoices, String invoiceNumber) {
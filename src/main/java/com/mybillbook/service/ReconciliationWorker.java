@@ -0,0 +1,61 @@
+package com.mybillbook.service;
+
+import com.mybillbook.model.ReconciliationJob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Polls the reconciliation queue and runs incremental reconciliation for each claimed user on
+ * a small worker pool, so uploads are reconciled continuously in the background.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "reconciliation.queue.enabled", havingValue = "true")
+public class ReconciliationWorker {
+
+    private final ReconciliationQueueService queueService;
+    private final ReconciliationService reconciliationService;
+    private final ThreadPoolTaskExecutor reconciliationWorkerExecutor;
+
+    @Scheduled(fixedDelayString = "${reconciliation.queue.poll-interval-ms:5000}")
+    public void poll() {
+        int idleWorkers = reconciliationWorkerExecutor.getMaxPoolSize() - reconciliationWorkerExecutor.getActiveCount();
+        if (idleWorkers <= 0) {
+            return;
+        }
+
+        List<ReconciliationJob> jobs = queueService.claim(idleWorkers);
+        for (ReconciliationJob job : jobs) {
+            try {
+                reconciliationWorkerExecutor.execute(() -> process(job));
+            } catch (TaskRejectedException e) {
+                queueService.fail(job.getId(), "No idle worker: " + e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(cron = "${reconciliation.queue.purge-cron:0 15 3 * * *}")
+    public void purgeCompleted() {
+        queueService.purgeCompleted();
+    }
+
+    private void process(ReconciliationJob job) {
+        try {
+            int suggestions = reconciliationService.runReconciliation(job.getUserId(), true);
+            queueService.complete(job.getId());
+            log.info("Background reconciliation job {} for user {} generated {} suggestions",
+                job.getId(), job.getUserId(), suggestions);
+        } catch (Exception e) {
+            log.error("Background reconciliation job {} for user {} failed: {}", job.getId(), job.getUserId(), e.getMessage());
+            queueService.fail(job.getId(), e.getMessage());
+        }
+    }
+}
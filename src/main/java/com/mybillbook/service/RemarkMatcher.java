@@ -0,0 +1,36 @@
+package com.mybillbook.service;
+
+import java.util.Locale;
+
+/**
+ * Cheap remark heuristics used to infer which customer or invoice a payment belongs to.
+ */
+final class RemarkMatcher {
+
+    private RemarkMatcher() {
+    }
+
+    /**
+     * A remark mentions a customer when it contains the full name or its leading word,
+     * e.g. "ramesh bill" mentions "Ramesh Traders".
+     */
+    static boolean mentionsCustomer(String remark, String customerName) {
+        if (remark == null || remark.isBlank() || customerName == null || customerName.isBlank()) {
+            return false;
+        }
+        String normalizedRemark = remark.toLowerCase(Locale.ROOT);
+        String normalizedName = customerName.trim().toLowerCase(Locale.ROOT);
+        if (normalizedRemark.contains(normalizedName)) {
+            return true;
+        }
+        String leadingWord = normalizedName.split("\\s+")[0];
+        return leadingWord.length() >= 3 && normalizedRemark.contains(leadingWord);
+    }
+
+    static boolean mentionsInvoice(String remark, String invoiceNumber) {
+        if (remark == null || invoiceNumber == null || invoiceNumber.isBlank()) {
+            return false;
+        }
+        return remark.toLowerCase(Locale.ROOT).contains(invoiceNumber.toLowerCase(Locale.ROOT));
+    }
+}
@@ -1,19 +1,21 @@
 package com.mybillbook.service;
 
+import com.mybillbook.dto.InvoiceStatusTotals;
+import com.mybillbook.dto.PaymentStatusCount;
 import com.mybillbook.enums.InvoiceStatus;
 import com.mybillbook.enums.PaymentStatus;
 import com.mybillbook.enums.SuggestionStatus;
-import com.mybillbook.model.Invoice;
-import com.mybillbook.model.Payment;
-import com.mybillbook.model.ReconciliationSuggestion;
+import com.mybillbook.model.Money;
 import com.mybillbook.repository.InvoiceRepository;
 import com.mybillbook.repository.PaymentRepository;
 import com.mybillbook.repository.ReconciliationSuggestionRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,57 +28,57 @@ public class ReportService {
     private final PaymentRepository paymentRepository;
     private final ReconciliationSuggestionRepository suggestionRepository;
 
+    @Transactional(readOnly = true)
     public Map<String, Object> getSummaryReport(Long userId) {
         Map<String, Object> report = new HashMap<>();
 
-        // Invoice stats
-        List<Invoice> allInvoices = invoiceRepository.findByUserIdAndStatusIn(
-            userId, List.of(InvoiceStatus.values())
-        );
-        long reconciledInvoices = allInvoices.stream()
-            .filter(inv -> inv.getStatus() == InvoiceStatus.FULLY_PAID)
-            .count();
-        long pendingInvoices = allInvoices.size() - reconciledInvoices;
+        // Invoice stats, counted and summed per status by the database
+        long totalInvoices = 0;
+        long reconciledInvoices = 0;
+        long totalRevenuePaise = 0;
+        long pendingRevenuePaise = 0;
+        for (InvoiceStatusTotals totals : invoiceRepository.sumByUserIdGroupByStatus(userId)) {
+            totalInvoices += totals.count();
+            if (totals.status() == InvoiceStatus.FULLY_PAID) {
+                reconciledInvoices = totals.count();
+            }
+            // addExact fails loudly instead of wrapping around
+            totalRevenuePaise = Math.addExact(totalRevenuePaise, totals.totalPaise());
+            pendingRevenuePaise = Math.addExact(pendingRevenuePaise, totals.pendingPaise());
+        }
+        long pendingInvoices = totalInvoices - reconciledInvoices;
 
         // Payment stats
-        List<Payment> allPayments = paymentRepository.findByUserId(userId);
-        long reconciledPayments = allPayments.stream()
-            .filter(p -> p.getStatus() == PaymentStatus.RECONCILED)
-            .count();
-        long unreconciledPayments = allPayments.size() - reconciledPayments;
-
-        // AI accuracy
-        List<ReconciliationSuggestion> allSuggestions = suggestionRepository.findByStatus(SuggestionStatus.CONFIRMED);
-        allSuggestions.addAll(suggestionRepository.findByStatus(SuggestionStatus.REJECTED));
-
-        double aiAccuracy = 0.0;
-        if (!allSuggestions.isEmpty()) {
-            long confirmed = allSuggestions.stream()
-                .filter(s -> s.getStatus() == SuggestionStatus.CONFIRMED)
-                .count();
-            aiAccuracy = (double) confirmed / allSuggestions.size();
+        long totalPayments = 0;
+        long reconciledPayments = 0;
+        for (PaymentStatusCount count : paymentRepository.countByUserIdGroupByStatus(userId)) {
+            totalPayments += count.count();
+            if (count.status() == PaymentStatus.RECONCILED) {
+                reconciledPayments = count.count();
+            }
         }
+        long unreconciledPayments = totalPayments - reconciledPayments;
 
-        // Revenue stats
-        BigDecimal totalRevenue = allInvoices.stream()
-            .map(Invoice::getTotalAmount)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // AI accuracy
+        Map<SuggestionStatus, Long> reviewedSuggestions = new EnumMap<>(SuggestionStatus.class);
+        suggestionRepository.countByUserIdAndStatusIn(userId, List.of(SuggestionStatus.CONFIRMED, SuggestionStatus.REJECTED))
+            .forEach(count -> reviewedSuggestions.put(count.status(), count.count()));
+        long confirmed = reviewedSuggestions.getOrDefault(SuggestionStatus.CONFIRMED, 0L);
+        long reviewed = confirmed + reviewedSuggestions.getOrDefault(SuggestionStatus.REJECTED, 0L);
 
-        BigDecimal pendingRevenue = allInvoices.stream()
-            .map(Invoice::getPendingAmount)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        double aiAccuracy = reviewed == 0 ? 0.0 : (double) confirmed / reviewed;
 
-        report.put("totalInvoices", allInvoices.size());
+        report.put("totalInvoices", totalInvoices);
         report.put("reconciledInvoices", reconciledInvoices);
         report.put("pendingInvoices", pendingInvoices);
 
-        report.put("totalPayments", allPayments.size());
+        report.put("totalPayments", totalPayments);
         report.put("reconciledPayments", reconciledPayments);
         report.put("unreconciledPayments", unreconciledPayments);
 
         report.put("aiAccuracy", BigDecimal.valueOf(aiAccuracy).setScale(2, RoundingMode.HALF_UP));
-        report.put("totalRevenue", totalRevenue);
-        report.put("pendingRevenue", pendingRevenue);
+        report.put("totalRevenue", Money.ofPaise(totalRevenuePaise));
+        report.put("pendingRevenue", Money.ofPaise(pendingRevenuePaise));
 
         return report;
     }
@@ -0,0 +1,74 @@
+package com.mybillbook.service;
+
+import com.mybillbook.model.Invoice;
+import com.mybillbook.model.Payment;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves payments that settle several invoices of the same customer at once by finding
+ * combinations of pending invoices whose pending amounts add up exactly to the payment.
+ */
+@Service
+@Slf4j
+public class SplitAllocationMatcher {
+
+    private static final int MAX_ALLOCATIONS = 3;
+
+    public record SplitAllocation(String customerName, List<Invoice> invoices) {
+    }
+
+    public List<SplitAllocation> findAllocations(Payment payment, List<Invoice> pendingInvoices) {
+        List<SplitAllocation> allocations = new ArrayList<>();
+        long paymentPaise = payment.getAmount().paise();
+
+        for (Map.Entry<String, List<Invoice>> customer : groupByCustomer(pendingInvoices).entrySet()) {
+            if (!RemarkMatcher.mentionsCustomer(payment.getRemark(), customer.getKey())) {
+                continue;
+            }
+
+            // Only invoices that fit inside the payment can be part of an exact split; oldest first
+            List<Invoice> candidates = customer.getValue().stream()
+                .filter(inv -> inv.getPendingAmount().signum() > 0)
+                .filter(inv -> inv.getPendingAmount().paise() <= paymentPaise)
+                .sorted(Comparator.comparing(Invoice::getInvoiceDate))
+                .limit(SubsetSumSolver.MAX_CANDIDATES)
+                .toList();
+
+            if (candidates.size() < 2) {
+                continue;
+            }
+
+            long[] amounts = candidates.stream()
+                .mapToLong(inv -> inv.getPendingAmount().paise())
+                .toArray();
+
+            for (int[] indices : SubsetSumSolver.findSubsets(amounts, paymentPaise, 2, MAX_ALLOCATIONS)) {
+                List<Invoice> invoices = new ArrayList<>(indices.length);
+                for (int index : indices) {
+                    invoices.add(candidates.get(index));
+                }
+                allocations.add(new SplitAllocation(customer.getKey(), invoices));
+            }
+        }
+
+        if (!allocations.isEmpty()) {
+            log.debug("Found {} split allocations for payment {}", allocations.size(), payment.getId());
+        }
+        return allocations.size() > MAX_ALLOCATIONS ? allocations.subList(0, MAX_ALLOCATIONS) : allocations;
+    }
+
+    private Map<String, List<Invoice>> groupByCustomer(List<Invoice> invoices) {
+        Map<String, List<Invoice>> byCustomer = new LinkedHashMap<>();
+        for (Invoice invoice : invoices) {
+            byCustomer.computeIfAbsent(invoice.getCustomerName(), k -> new ArrayList<>()).add(invoice);
+        }
+        return byCustomer;
+    }
+}
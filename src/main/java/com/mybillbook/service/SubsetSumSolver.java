@@ -0,0 +1,247 @@
+package com.mybillbook.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Finds combinations of amounts (in paise) that add up exactly to a target.
+ * Small candidate lists use an exhaustive meet-in-the-middle search; larger ones fall back
+ * to a dynamic program over reachable sums whose state count is capped.
+ */
+final class SubsetSumSolver {
+
+    static final int MAX_CANDIDATES = 32;
+
+    static final int MAX_DP_STATES = 200_000;
+
+    private SubsetSumSolver() {
+    }
+
+    /**
+     * Search steps shared by every search of one reconciliation run, so a user with many open
+     * invoices and long payment histories costs bounded time overall rather than per invoice.
+     */
+    static final class SearchBudget {
+
+        private long remaining;
+
+        SearchBudget(long steps) {
+            remaining = steps;
+        }
+
+        boolean isExhausted() {
+            return remaining <= 0;
+        }
+
+        private void spend(long steps) {
+            remaining -= steps;
+        }
+    }
+
+    /**
+     * Returns one index combination of {@code values} summing to {@code target} with at least
+     * {@code minSize} elements, or {@code null} when none was found within the search bounds or
+     * the budget ran out.
+     */
+    static int[] findSubset(long[] values, long target, int minSize, SearchBudget budget) {
+        if (budget.isExhausted()) {
+            return null;
+        }
+        if (values.length <= MAX_CANDIDATES) {
+            // Both halves are enumerated in full, so the cost is known up front
+            int half = values.length / 2;
+            budget.spend((1L << half) + (1L << (values.length - half)));
+            List<int[]> subsets = findSubsets(values, target, minSize, 1);
+            return subsets.isEmpty() ? null : subsets.get(0);
+        }
+        return findSubsetBounded(values, target, minSize, MAX_DP_STATES, budget);
+    }
+
+    /**
+     * Dynamic program over distinct reachable sums, recording for each sum the item that first
+     * reached it so the combination can be rebuilt. Stops growing once {@code maxStates} sums
+     * are known, trading completeness for bounded memory on very large candidate lists, and
+     * gives up once the budget is spent.
+     */
+    static int[] findSubsetBounded(long[] values, long target, int minSize, int maxStates, SearchBudget budget) {
+        long[] sums = new long[Math.min(maxStates, 1 << 16)];
+        int[] items = new int[sums.length];
+        int[] parents = new int[sums.length];
+        int[] sizes = new int[sums.length];
+        ReachableSums seen = new ReachableSums(maxStates);
+
+        // State 0 is the empty combination
+        int count = 1;
+        seen.add(0L);
+        parents[0] = -1;
+
+        for (int item = 0; item < values.length; item++) {
+            int existing = count;
+            budget.spend(existing);
+            if (budget.remaining < 0) {
+                return null;
+            }
+            for (int state = 0; state < existing; state++) {
+                long sum = sums[state] + values[item];
+                int size = sizes[state] + 1;
+                if (sum > target || seen.contains(sum) || (sum == target && size < minSize)) {
+                    continue;
+                }
+                if (count == maxStates) {
+                    break;
+                }
+                if (count == sums.length) {
+                    int grown = Math.min(maxStates, sums.length * 2);
+                    sums = Arrays.copyOf(sums, grown);
+                    items = Arrays.copyOf(items, grown);
+                    parents = Arrays.copyOf(parents, grown);
+                    sizes = Arrays.copyOf(sizes, grown);
+                }
+                sums[count] = sum;
+                items[count] = item;
+                parents[count] = state;
+                sizes[count] = size;
+                seen.add(sum);
+                count++;
+
+                if (sum == target) {
+                    int[] indices = new int[size];
+                    for (int s = count - 1, i = size - 1; s > 0; s = parents[s]) {
+                        indices[i--] = items[s];
+                    }
+                    return indices;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns up to {@code maxResults} index combinations of {@code values} summing to {@code target},
+     * each with at least {@code minSize} elements, smallest combinations first.
+     */
+    static List<int[]> findSubsets(long[] values, long target, int minSize, int maxResults) {
+        if (values.length > MAX_CANDIDATES) {
+            throw new IllegalArgumentException("Too many candidates for subset search: " + values.length);
+        }
+
+        int half = values.length / 2;
+        int rightSize = values.length - half;
+
+        // Enumerate all subset sums of the right half, sorted so matches can be found by binary search
+        int rightCount = 1 << rightSize;
+        long[] rightSums = new long[rightCount];
+        for (int mask = 1; mask < rightCount; mask++) {
+            int low = Integer.numberOfTrailingZeros(mask);
+            rightSums[mask] = rightSums[mask & (mask - 1)] + values[half + low];
+        }
+        Integer[] order = new Integer[rightCount];
+        for (int i = 0; i < rightCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> rightSums[i]));
+        long[] sortedSums = new long[rightCount];
+        for (int i = 0; i < rightCount; i++) {
+            sortedSums[i] = rightSums[order[i]];
+        }
+
+        List<int[]> results = new ArrayList<>();
+        int leftCount = 1 << half;
+        long[] leftSums = new long[leftCount];
+        // Collect a few extra so the smallest combinations win after sorting
+        int collectLimit = maxResults * 4;
+
+        for (int leftMask = 0; leftMask < leftCount && results.size() < collectLimit; leftMask++) {
+            if (leftMask > 0) {
+                int low = Integer.numberOfTrailingZeros(leftMask);
+                leftSums[leftMask] = leftSums[leftMask & (leftMask - 1)] + values[low];
+            }
+            long remainder = target - leftSums[leftMask];
+            if (remainder < 0) {
+                continue;
+            }
+
+            int pos = lowerBound(sortedSums, remainder);
+            while (pos < rightCount && sortedSums[pos] == remainder && results.size() < collectLimit) {
+                int rightMask = order[pos++];
+                if (Integer.bitCount(leftMask) + Integer.bitCount(rightMask) >= minSize) {
+                    results.add(toIndices(leftMask, rightMask, half));
+                }
+            }
+        }
+
+        results.sort(Comparator.comparingInt(indices -> indices.length));
+        return results.size() > maxResults ? results.subList(0, maxResults) : results;
+    }
+
+    /**
+     * Set of non-negative sums with open addressing over a primitive array, so the DP's
+     * membership checks neither box nor allocate per state.
+     */
+    private static final class ReachableSums {
+
+        private static final long EMPTY = -1L;
+
+        private final long[] slots;
+        private final int mask;
+
+        ReachableSums(int maxSize) {
+            // At most half full, so probe chains stay short
+            int capacity = Integer.highestOneBit(Math.max(maxSize, 2) * 2 - 1) << 1;
+            slots = new long[capacity];
+            Arrays.fill(slots, EMPTY);
+            mask = capacity - 1;
+        }
+
+        boolean contains(long sum) {
+            for (int i = slot(sum); ; i = (i + 1) & mask) {
+                if (slots[i] == sum) {
+                    return true;
+                }
+                if (slots[i] == EMPTY) {
+                    return false;
+                }
+            }
+        }
+
+        void add(long sum) {
+            int i = slot(sum);
+            while (slots[i] != EMPTY && slots[i] != sum) {
+                i = (i + 1) & mask;
+            }
+            slots[i] = sum;
+        }
+
+        private int slot(long sum) {
+            return (int) ((sum * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+
+    private static int lowerBound(long[] sorted, long key) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int[] toIndices(int leftMask, int rightMask, int offset) {
+        int[] indices = new int[Integer.bitCount(leftMask) + Integer.bitCount(rightMask)];
+        int i = 0;
+        for (int mask = leftMask; mask != 0; mask &= mask - 1) {
+            indices[i++] = Integer.numberOfTrailingZeros(mask);
+        }
+        for (int mask = rightMask; mask != 0; mask &= mask - 1) {
+            indices[i++] = offset + Integer.numberOfTrailingZeros(mask);
+        }
+        return indices;
+    }
+}
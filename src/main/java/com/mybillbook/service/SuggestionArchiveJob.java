@@ -0,0 +1,87 @@
+package com.mybillbook.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the yearly partitions of resolved suggestions on PostgreSQL: creates next year's
+ * partitions ahead of time and moves years past the retention period into the archive schema,
+ * which keeps them queryable but out of every live query and index.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "reconciliation.archive.enabled", havingValue = "true")
+public class SuggestionArchiveJob {
+
+    private static final List<String> RESOLVED_PARTITIONS =
+        List.of("reconciliation_suggestions_confirmed", "reconciliation_suggestions_rejected");
+
+    private static final Pattern YEARLY_PARTITION = Pattern.compile("^(reconciliation_suggestions_[a-z]+)_(\\d{4})$");
+
+    private final EntityManager entityManager;
+    private final DataVersionService dataVersionService;
+
+    @Value("${reconciliation.archive.retention-years:3}")
+    private int retentionYears;
+
+    @Scheduled(cron = "${reconciliation.archive.cron:0 30 2 * * *}")
+    @Transactional
+    public void run() {
+        int currentYear = LocalDate.now().getYear();
+        boolean archived = false;
+
+        for (String parent : RESOLVED_PARTITIONS) {
+            createYearlyPartition(parent, currentYear);
+            createYearlyPartition(parent, currentYear + 1);
+
+            for (String partition : yearlyPartitionsOf(parent)) {
+                Matcher matcher = YEARLY_PARTITION.matcher(partition);
+                if (matcher.matches() && Integer.parseInt(matcher.group(2)) < currentYear - retentionYears) {
+                    archive(parent, partition);
+                    archived = true;
+                }
+            }
+        }
+
+        // Archived suggestions drop out of the summary report's accuracy figures
+        if (archived) {
+            dataVersionService.bumpAll();
+        }
+    }
+
+    private void createYearlyPartition(String parent, int year) {
+        entityManager.createNativeQuery(String.format(
+            "CREATE TABLE IF NOT EXISTS %s_%d PARTITION OF %s FOR VALUES FROM ('%d-01-01') TO ('%d-01-01')",
+            parent, year, parent, year, year + 1)).executeUpdate();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> yearlyPartitionsOf(String parent) {
+        return entityManager.createNativeQuery(
+                "SELECT child.relname FROM pg_inherits i "
+                    + "JOIN pg_class child ON child.oid = i.inhrelid "
+                    + "JOIN pg_class parent ON parent.oid = i.inhparent "
+                    + "WHERE parent.relname = :parent ORDER BY child.relname")
+            .setParameter("parent", parent)
+            .getResultList();
+    }
+
+    private void archive(String parent, String partition) {
+        // Names come from the catalog and match YEARLY_PARTITION, so they are safe to inline
+        entityManager.createNativeQuery("ALTER TABLE " + parent + " DETACH PARTITION " + partition).executeUpdate();
+        entityManager.createNativeQuery("ALTER TABLE " + partition + " SET SCHEMA archive").executeUpdate();
+        log.info("Archived suggestion partition {} to the archive schema", partition);
+    }
+}
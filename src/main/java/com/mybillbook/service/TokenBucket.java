@@ -0,0 +1,43 @@
+package com.mybillbook.service;
+
+/**
+ * Classic token bucket refilled continuously at a per-minute rate. Not thread-safe on its own;
+ * callers serialize access.
+ */
+final class TokenBucket {
+
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+
+    private final double capacity;
+    private final double refillPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(long perMinute) {
+        this.capacity = perMinute;
+        this.refillPerNano = (double) perMinute / NANOS_PER_MINUTE;
+        this.tokens = perMinute;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Nanoseconds until {@code amount} tokens are available; zero when they are available now.
+     * Requests larger than the bucket are clamped so they can eventually run.
+     */
+    long nanosUntilAvailable(long amount) {
+        refill();
+        double needed = Math.min(amount, capacity) - tokens;
+        return needed <= 0 ? 0 : (long) Math.ceil(needed / refillPerNano);
+    }
+
+    void consume(long amount) {
+        refill();
+        tokens -= Math.min(amount, capacity);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * refillPerNano);
+        lastRefillNanos = now;
+    }
+}
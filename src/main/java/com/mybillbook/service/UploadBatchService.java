@@ -0,0 +1,132 @@
+package com.mybillbook.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mybillbook.dto.UploadResult;
+import com.mybillbook.enums.UploadType;
+import com.mybillbook.exception.InvalidRequestException;
+import com.mybillbook.model.UploadBatch;
+import com.mybillbook.repository.UploadBatchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Remembers the outcome of uploads sent with an {@code Idempotency-Key}, so a client retrying
+ * the same batch gets the original result back, row errors included, without any rows being
+ * re-processed. Uploads commit their rows in chunks, so one that fails part way keeps what it
+ * stored; the batch is only recorded once it has finished, and resending it skips those rows.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class UploadBatchService {
+
+    private static final int MAX_BATCH_KEY_LENGTH = 100;
+
+    private static final TypeReference<List<UploadResult.RowError>> ROW_ERRORS = new TypeReference<>() {
+    };
+
+    private final UploadBatchRepository uploadBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    // Also bounds the IN lists of per-chunk lookups well below the drivers' bind parameter limits
+    @Value("${upload.commit-chunk-size:500}")
+    private int commitChunkSize;
+
+    /**
+     * Runs {@code upload} and records its result under {@code batchKey}, or returns the recorded
+     * result if the batch was processed before. When the same batch is sent twice at once, both
+     * requests store the same rows at most once, and the one that records second gets the
+     * first one's result.
+     */
+    public UploadResult runOnce(Long userId, UploadType uploadType, String batchKey, Supplier<UploadResult> upload) {
+        if (batchKey != null && (batchKey.isBlank() || batchKey.length() > MAX_BATCH_KEY_LENGTH)) {
+            throw new InvalidRequestException("Idempotency-Key must be 1 to " + MAX_BATCH_KEY_LENGTH + " characters");
+        }
+        if (batchKey == null) {
+            return upload.get();
+        }
+
+        Optional<UploadResult> previous = transactionTemplate.execute(status -> findPreviousResult(userId, uploadType, batchKey));
+        if (previous.isPresent()) {
+            return previous.get();
+        }
+
+        UploadResult result = upload.get();
+        return transactionTemplate.execute(status -> record(userId, uploadType, batchKey, result));
+    }
+
+    /**
+     * Hands {@code rows} to {@code insertChunk} a chunk at a time, each chunk in a transaction of
+     * its own, and returns how many rows were inserted in total.
+     */
+    public <T> int insertInChunks(List<T> rows, ToIntFunction<List<T>> insertChunk) {
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += commitChunkSize) {
+            List<T> chunk = rows.subList(from, Math.min(from + commitChunkSize, rows.size()));
+            inserted += transactionTemplate.execute(status -> insertChunk.applyAsInt(chunk));
+        }
+        return inserted;
+    }
+
+    private Optional<UploadResult> findPreviousResult(Long userId, UploadType uploadType, String batchKey) {
+        Optional<UploadResult> previous = uploadBatchRepository.findByUserIdAndUploadTypeAndBatchKey(userId, uploadType, batchKey)
+            .map(batch -> new UploadResult(batch.getUploaded(), batch.getSkipped(), batch.getFailed(), readErrors(batch), true));
+        previous.ifPresent(result -> log.info("{} batch {} for user {} was already processed", uploadType, batchKey, userId));
+        return previous;
+    }
+
+    private UploadResult record(Long userId, UploadType uploadType, String batchKey, UploadResult result) {
+        int recorded = uploadBatchRepository.insertIfAbsent(userId, uploadType.name(), batchKey,
+            result.uploaded(), result.skipped(), result.failed(), writeErrors(result.errors()));
+        if (recorded == 0) {
+            // A concurrent request with the same key got there first and has committed by now
+            return findPreviousResult(userId, uploadType, batchKey)
+                .orElseThrow(() -> new IllegalStateException("Batch " + batchKey + " conflicted but was not found"));
+        }
+        log.debug("Recorded {} batch {} for user {}", uploadType, batchKey, userId);
+        return result;
+    }
+
+    private String writeErrors(List<UploadResult.RowError> errors) {
+        try {
+            return objectMapper.writeValueAsString(errors);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize row errors", e);
+        }
+    }
+
+    private List<UploadResult.RowError> readErrors(UploadBatch batch) {
+        if (batch.getErrors() == null) {
+            return List.of();
+        }
+        try {
+            return objectMapper.readValue(batch.getErrors(), ROW_ERRORS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read the row errors of batch " + batch.getBatchKey(), e);
+        }
+    }
+
+    static String sha256(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.mybillbook.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mybillbook.model.User;
+import com.mybillbook.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded local cache of users by id and by mobile number, sitting in front of the lookups every
+ * upload and login performs. Absent users are never cached, and callers get their own copy so a
+ * mutated entity cannot leak into other requests. Nothing evicts entries: the profile is never
+ * updated after registration and the data version is always read from the table, so only an
+ * out-of-band edit can go stale here, for as long as the expiry allows.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserCache {
+
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    private Cache<Long, User> usersById;
+    private Cache<String, Long> userIdsByMobile;
+
+    @Value("${auth.user-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${auth.user-cache.expire-after-write-minutes:10}")
+    private long expireAfterWriteMinutes;
+
+    @PostConstruct
+    void start() {
+        // Expiry bounds how long a row changed outside this instance can be served stale
+        usersById = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(Duration.ofMinutes(expireAfterWriteMinutes))
+            .recordStats()
+            .build();
+        userIdsByMobile = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(Duration.ofMinutes(expireAfterWriteMinutes))
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, userIdsByMobile, "users.byMobile");
+    }
+
+    // Misses load in a read-write transaction so a user registered moments ago is found on the
+    // primary instead of missing on a lagging replica
+    public Optional<User> findById(Long userId) {
+        return Optional.ofNullable(usersById.get(userId,
+                id -> transactionTemplate.execute(status -> userRepository.findById(id).orElse(null))))
+            .map(UserCache::copy);
+    }
+
+    public Optional<User> findByMobileNumber(String mobileNumber) {
+        Long userId = userIdsByMobile.get(mobileNumber,
+            mobile -> transactionTemplate.execute(status -> userRepository.findByMobileNumber(mobile).map(this::cache).orElse(null)));
+        return userId != null ? findById(userId) : Optional.empty();
+    }
+
+    private Long cache(User user) {
+        usersById.put(user.getId(), user);
+        return user.getId();
+    }
+
+    private static User copy(User user) {
+        return new User(user.getId(), user.getMobileNumber(), user.getName(), user.getBusinessName(), user.getCreatedAt(),
+            user.getDataVersion());
+    }
+}
@@ -0,0 +1,16 @@
+CREATE TABLE upload_batches (
+    id              BIGSERIAL PRIMARY KEY,
+    user_id         BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    upload_type     VARCHAR(20) NOT NULL CHECK (upload_type IN ('INVOICES', 'PAYMENTS')),
+    batch_key       VARCHAR(100) NOT NULL,
+    uploaded        INT NOT NULL,
+    skipped         INT NOT NULL,
+    failed          INT NOT NULL,
+    created_at      TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uq_upload_batches_user_type_key UNIQUE (user_id, upload_type, batch_key)
+);
+
+ALTER TABLE payments ADD COLUMN row_hash VARCHAR(64);
+
+-- Existing rows keep a NULL hash, which never conflicts
+CREATE UNIQUE INDEX uq_payments_user_row_hash ON payments(user_id, row_hash);
@@ -0,0 +1,102 @@
+-- Partition suggestions by status so the hot path (PENDING rows) scans a small partition of its
+-- own. Resolved suggestions are further split by year of creation, so old years can be detached
+-- into the archive schema without touching live data.
+--
+-- Trade-offs accepted for that:
+--   * The primary key has to carry the partition keys, so it is (id, status, created_at). Ids
+--     still come from one sequence, but nothing in the schema enforces that id alone is unique,
+--     and no other table can hold a foreign key to a suggestion.
+--   * Confirming or rejecting a suggestion changes its partition key. PostgreSQL executes such an
+--     update as a delete from the PENDING partition plus an insert into the resolved one, with
+--     new index entries on both sides, so a status change costs more than an in-place update.
+--     An update racing one that already moved the row fails with a serialization error
+--     instead of following it.
+
+CREATE SCHEMA IF NOT EXISTS archive;
+
+-- Keep the id sequence when the original table is dropped
+ALTER SEQUENCE reconciliation_suggestions_id_seq OWNED BY NONE;
+
+CREATE TABLE reconciliation_suggestions_partitioned (
+    id               BIGINT NOT NULL DEFAULT nextval('reconciliation_suggestions_id_seq'),
+    payment_id       BIGINT NOT NULL REFERENCES payments(id) ON DELETE CASCADE,
+    invoice_id       BIGINT NOT NULL REFERENCES invoices(id) ON DELETE CASCADE,
+    confidence       DECIMAL(3,2) NOT NULL CHECK (confidence >= 0.00 AND confidence <= 1.00),
+    reasoning        TEXT NOT NULL,
+    status           VARCHAR(20) NOT NULL CHECK (status IN ('PENDING', 'CONFIRMED', 'REJECTED')),
+    ai_model         VARCHAR(50),
+    created_at       TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    confirmed_at     TIMESTAMP,
+    confirmed_by     BIGINT REFERENCES users(id),
+    match_type       VARCHAR(30) NOT NULL DEFAULT 'AI'
+        CONSTRAINT reconciliation_suggestions_match_type_check
+        CHECK (match_type IN ('AI', 'SPLIT_ALLOCATION', 'INSTALMENT_AGGREGATION')),
+    allocated_amount DECIMAL(10,2) CHECK (allocated_amount > 0),
+    allocation_group VARCHAR(36),
+    version          BIGINT NOT NULL DEFAULT 0,
+    -- Partitioned tables need the partition keys in every unique constraint
+    PRIMARY KEY (id, status, created_at)
+) PARTITION BY LIST (status);
+
+CREATE TABLE reconciliation_suggestions_pending PARTITION OF reconciliation_suggestions_partitioned
+    FOR VALUES IN ('PENDING');
+
+CREATE TABLE reconciliation_suggestions_confirmed PARTITION OF reconciliation_suggestions_partitioned
+    FOR VALUES IN ('CONFIRMED') PARTITION BY RANGE (created_at);
+
+CREATE TABLE reconciliation_suggestions_rejected PARTITION OF reconciliation_suggestions_partitioned
+    FOR VALUES IN ('REJECTED') PARTITION BY RANGE (created_at);
+
+CREATE TABLE reconciliation_suggestions_confirmed_default PARTITION OF reconciliation_suggestions_confirmed DEFAULT;
+
+CREATE TABLE reconciliation_suggestions_rejected_default PARTITION OF reconciliation_suggestions_rejected DEFAULT;
+
+-- Yearly partitions for every year with data, plus the current and next year; the archive job
+-- keeps creating them ahead of time from then on
+DO $$
+DECLARE
+    first_year INT;
+    last_year  INT := EXTRACT(YEAR FROM CURRENT_DATE)::INT + 1;
+    status_name TEXT;
+BEGIN
+    SELECT COALESCE(EXTRACT(YEAR FROM MIN(created_at))::INT, last_year - 1)
+      INTO first_year
+      FROM reconciliation_suggestions;
+
+    FOREACH status_name IN ARRAY ARRAY['confirmed', 'rejected'] LOOP
+        FOR partition_year IN first_year..last_year LOOP
+            EXECUTE format(
+                'CREATE TABLE reconciliation_suggestions_%s_%s PARTITION OF reconciliation_suggestions_%s '
+                    || 'FOR VALUES FROM (%L) TO (%L)',
+                status_name, partition_year, status_name, make_date(partition_year, 1, 1), make_date(partition_year + 1, 1, 1));
+        END LOOP;
+    END LOOP;
+END $$;
+
+INSERT INTO reconciliation_suggestions_partitioned (
+    id, payment_id, invoice_id, confidence, reasoning, status, ai_model, created_at, confirmed_at,
+    confirmed_by, match_type, allocated_amount, allocation_group, version)
+SELECT id, payment_id, invoice_id, confidence, reasoning, status, ai_model,
+       COALESCE(created_at, CURRENT_TIMESTAMP), confirmed_at, confirmed_by, match_type,
+       allocated_amount, allocation_group, version
+  FROM reconciliation_suggestions;
+
+DROP TABLE reconciliation_suggestions;
+
+ALTER TABLE reconciliation_suggestions_partitioned RENAME TO reconciliation_suggestions;
+ALTER INDEX reconciliation_suggestions_partitioned_pkey RENAME TO reconciliation_suggestions_pkey;
+ALTER SEQUENCE reconciliation_suggestions_id_seq OWNED BY reconciliation_suggestions.id;
+
+-- Indexes on the parent cascade to every partition
+CREATE INDEX idx_suggestions_payment_status ON reconciliation_suggestions(payment_id, status);
+CREATE INDEX idx_suggestions_invoice ON reconciliation_suggestions(invoice_id);
+CREATE INDEX idx_suggestions_allocation_group ON reconciliation_suggestions(allocation_group)
+    WHERE allocation_group IS NOT NULL;
+
+-- Confidence ordering only matters while a suggestion is still awaiting review
+CREATE INDEX idx_suggestions_pending_confidence ON reconciliation_suggestions_pending(confidence DESC);
+
+-- Payments stay unpartitioned (suggestions reference payments(id), and a foreign key to a
+-- partitioned table needs the partition key in it), but the hot-path lookups only ever want
+-- unreconciled rows, so index just those
+CREATE INDEX idx_payments_user_unreconciled ON payments(user_id, id) WHERE status = 'UNRECONCILED';
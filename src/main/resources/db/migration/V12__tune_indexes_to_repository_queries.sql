@@ -0,0 +1,25 @@
+-- Indexes matched to the repository queries that actually run. Each comment names the method(s)
+-- the index serves; PostgresIndexUsageTest fails if one of them stops using its index.
+
+-- mobile_number and invoice_number are already indexed by their UNIQUE constraints
+DROP INDEX idx_users_mobile;
+DROP INDEX idx_invoices_invoice_number;
+
+-- Customer names are matched in Java after loading a user's invoices; nothing filters on them in SQL
+DROP INDEX idx_invoices_customer_name;
+
+-- findMaxUpdatedAtByUserId (index-only), findByUserIdAndStatusInAndUpdatedAtAfter
+CREATE INDEX idx_invoices_user_updated ON invoices(user_id, updated_at);
+
+-- No query filters on payment_date alone; date windows are applied per user in Java
+DROP INDEX idx_payments_payment_date;
+
+-- findMaxIdByUserId (index-only), findByUserId, findViewsByUserId and streamViewsByUserId ordered by id
+CREATE INDEX idx_payments_user_id ON payments(user_id, id);
+
+-- existsByPaymentIdAndStatus and findPaymentIdsByUserIdAndStatus answered from the index alone
+DROP INDEX idx_suggestions_payment_status;
+CREATE INDEX idx_suggestions_payment_status ON reconciliation_suggestions(payment_id, status) INCLUDE (id);
+
+-- findByStatus needs no status-leading index: the LIST(status) partitioning from V11 prunes it
+-- down to a single partition
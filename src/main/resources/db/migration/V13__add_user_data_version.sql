@@ -0,0 +1,3 @@
+-- Bumped by every write that changes what a user's list and report endpoints return; their ETags
+-- are derived from it, so an unchanged version lets a conditional GET answer 304 without a query
+ALTER TABLE users ADD COLUMN data_version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+-- Row errors of a recorded batch as a JSON array, so a resent batch gets them back along with the
+-- counts. Batches recorded before this keep NULL and replay without their errors
+ALTER TABLE upload_batches ADD COLUMN errors TEXT;
@@ -0,0 +1,7 @@
+ALTER TABLE reconciliation_suggestions
+    ADD COLUMN match_type       VARCHAR(30) NOT NULL DEFAULT 'AI' CHECK (match_type IN ('AI', 'SPLIT_ALLOCATION')),
+    ADD COLUMN allocated_amount DECIMAL(10,2) CHECK (allocated_amount > 0),
+    ADD COLUMN allocation_group VARCHAR(36);
+
+CREATE INDEX idx_suggestions_allocation_group ON reconciliation_suggestions(allocation_group)
+    WHERE allocation_group IS NOT NULL;
@@ -0,0 +1,5 @@
+ALTER TABLE reconciliation_suggestions DROP CONSTRAINT reconciliation_suggestions_match_type_check;
+
+ALTER TABLE reconciliation_suggestions
+    ADD CONSTRAINT reconciliation_suggestions_match_type_check
+    CHECK (match_type IN ('AI', 'SPLIT_ALLOCATION', 'INSTALMENT_AGGREGATION'));
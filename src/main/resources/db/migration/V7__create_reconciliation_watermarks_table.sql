@@ -0,0 +1,6 @@
+CREATE TABLE reconciliation_watermarks (
+    user_id             BIGINT PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    last_payment_id     BIGINT NOT NULL DEFAULT 0,
+    invoices_updated_at TIMESTAMP,
+    updated_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
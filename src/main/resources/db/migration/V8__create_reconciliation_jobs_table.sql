@@ -0,0 +1,19 @@
+CREATE TABLE reconciliation_jobs (
+    id              BIGSERIAL PRIMARY KEY,
+    user_id         BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    status          VARCHAR(20) NOT NULL CHECK (status IN ('QUEUED', 'RUNNING', 'DONE', 'FAILED')),
+    attempts        INT NOT NULL DEFAULT 0,
+    available_at    TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_at       TIMESTAMP,
+    last_error      TEXT,
+    created_at      TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at      TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_reconciliation_jobs_queued ON reconciliation_jobs(available_at) WHERE status = 'QUEUED';
+CREATE INDEX idx_reconciliation_jobs_user_status ON reconciliation_jobs(user_id, status);
+
+-- At most one queued and one running job per user. A job may wait behind the running one, so
+-- uploads made during a run are still picked up; enqueue relies on these to skip duplicates.
+CREATE UNIQUE INDEX uq_reconciliation_jobs_user_queued ON reconciliation_jobs(user_id) WHERE status = 'QUEUED';
+CREATE UNIQUE INDEX uq_reconciliation_jobs_user_running ON reconciliation_jobs(user_id) WHERE status = 'RUNNING';
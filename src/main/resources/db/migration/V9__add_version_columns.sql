@@ -0,0 +1,5 @@
+ALTER TABLE invoices ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE payments ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE reconciliation_suggestions ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
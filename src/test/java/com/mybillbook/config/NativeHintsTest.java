@@ -0,0 +1,43 @@
+package com.mybillbook.config;
+
+import com.mybillbook.dto.OpenAIMatchResponse;
+import com.mybillbook.dto.SuggestionView;
+import com.mybillbook.model.Money;
+import com.theokanning.openai.client.OpenAiApi;
+import com.theokanning.openai.completion.chat.ChatCompletionResult;
+import com.theokanning.openai.service.ChatCompletionRequestMixIn;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NativeHintsTest {
+
+    private RuntimeHints hints;
+
+    @BeforeEach
+    void setUp() {
+        hints = new RuntimeHints();
+        new NativeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void shouldRegisterJsonTypesBoundOutsideSpringMvc() {
+        // Then - nested types are included, so Jackson can bind the whole response
+        assertThat(RuntimeHintsPredicates.reflection().onType(OpenAIMatchResponse.Match.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(OpenAIMatchResponse.Match.class, "setInvoiceNumber"))
+            .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(SuggestionView.class, "invoice")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(ChatCompletionResult.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(Money.class, "toBigDecimal")).accepts(hints);
+    }
+
+    @Test
+    void shouldRegisterOpenAiClientInternals() {
+        // Then
+        assertThat(RuntimeHintsPredicates.proxies().forInterfaces(OpenAiApi.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(ChatCompletionRequestMixIn.class)).accepts(hints);
+    }
+}
@@ -0,0 +1,132 @@
+package com.mybillbook.config;
+
+import com.mybillbook.enums.Workload;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoutingDataSourceTest {
+
+    private RoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        // Separate in-memory databases stand in for each pool; there is no background pool
+        DataSource primary = h2("primary");
+        routingDataSource = new RoutingDataSource();
+        routingDataSource.setTargetDataSources(Map.of(
+            RoutingDataSource.Route.PRIMARY, primary,
+            RoutingDataSource.Route.INGEST, h2("ingest"),
+            RoutingDataSource.Route.REPLICA, h2("replica")));
+        routingDataSource.setDefaultTargetDataSource(primary);
+        routingDataSource.afterPropertiesSet();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    void shouldRouteReadOnlyTransactionsToReplica() {
+        // When
+        String database = readOnly.execute(status -> currentDatabase());
+
+        // Then
+        assertThat(database).isEqualTo("REPLICA");
+    }
+
+    @Test
+    void shouldRouteReadWriteTransactionsToPrimary() {
+        // When
+        String database = readWrite.execute(status -> currentDatabase());
+
+        // Then
+        assertThat(database).isEqualTo("PRIMARY");
+    }
+
+    @Test
+    void shouldRouteWorkOutsideTransactionsToPrimary() {
+        // When
+        String database = currentDatabase();
+
+        // Then
+        assertThat(database).isEqualTo("PRIMARY");
+    }
+
+    @Test
+    void shouldFallBackToPrimaryWhileReplicaIsUnavailable() {
+        // Given
+        routingDataSource.setReplicaAvailable(false);
+
+        // When
+        String database = readOnly.execute(status -> currentDatabase());
+
+        // Then
+        assertThat(database).isEqualTo("PRIMARY");
+    }
+
+    @Test
+    void shouldRouteIngestWorkToIngestPool() {
+        // When
+        String database = WorkloadContext.call(Workload.INGEST, () -> readWrite.execute(status -> currentDatabase()));
+
+        // Then
+        assertThat(database).isEqualTo("INGEST");
+    }
+
+    @Test
+    void shouldPreferReplicaForReadOnlyIngestWork() {
+        // When
+        String database = WorkloadContext.call(Workload.INGEST, () -> readOnly.execute(status -> currentDatabase()));
+
+        // Then
+        assertThat(database).isEqualTo("REPLICA");
+    }
+
+    @Test
+    void shouldFallBackToPrimaryForWorkloadWithoutPool() {
+        // When
+        String database = WorkloadContext.call(Workload.BACKGROUND, () -> readWrite.execute(status -> currentDatabase()));
+
+        // Then
+        assertThat(database).isEqualTo("PRIMARY");
+    }
+
+    @Test
+    void shouldRestoreInteractiveWorkloadAfterTaggedWork() {
+        // Given
+        WorkloadContext.run(Workload.INGEST, () -> readWrite.execute(status -> currentDatabase()));
+
+        // When
+        String database = readWrite.execute(status -> currentDatabase());
+
+        // Then
+        assertThat(WorkloadContext.current()).isEqualTo(Workload.INTERACTIVE);
+        assertThat(database).isEqualTo("PRIMARY");
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("SELECT DATABASE()", String.class);
+    }
+
+    private static DataSource h2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+}
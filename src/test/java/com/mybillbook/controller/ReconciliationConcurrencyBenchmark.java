@@ -0,0 +1,192 @@
+package com.mybillbook.controller;
+
+import com.mybillbook.enums.InvoiceStatus;
+import com.mybillbook.enums.PaymentMode;
+import com.mybillbook.enums.PaymentStatus;
+import com.mybillbook.model.Invoice;
+import com.mybillbook.model.Money;
+import com.mybillbook.model.Payment;
+import com.mybillbook.model.User;
+import com.mybillbook.repository.InvoiceRepository;
+import com.mybillbook.repository.PaymentRepository;
+import com.mybillbook.repository.UserRepository;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures how many reconciliation runs the server keeps in flight while every OpenAI call takes
+ * {@link #AI_DELAY_MS}. The delay is long on purpose: it keeps request threads, rather than CPU
+ * or the connection pool, the scarce resource even on a single-core machine. Not part of the
+ * regular suite; run it once per JVM and compare:
+ * <pre>
+ * mvn test -Dtest=ReconciliationConcurrencyBenchmark -Dspring.threads.virtual.enabled=false  # platform threads
+ * mvn test -Dtest=ReconciliationConcurrencyBenchmark                                          # virtual threads
+ * </pre>
+ * The prod profile is active in both cases, so the only difference is
+ * {@code spring.threads.virtual.enabled}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.generate_statistics=false",
+    "logging.level.com.mybillbook=WARN",
+    "reconciliation.queue.enabled=false",
+    "openai.rate-limit.max-concurrent-calls=10000",
+    "openai.rate-limit.global.requests-per-minute=1000000",
+    "openai.rate-limit.global.tokens-per-minute=1000000000"
+})
+@ActiveProfiles({"test", "prod"})
+class ReconciliationConcurrencyBenchmark {
+
+    private static final int CONCURRENT_RUNS = 600;
+    private static final long AI_DELAY_MS = 20_000;
+    private static final String AI_RESPONSE = """
+        {"id": "bench", "object": "chat.completion", "created": 0, "model": "gpt-4o-mini",
+         "choices": [{"index": 0, "finish_reason": "stop",
+                      "message": {"role": "assistant", "content": "{\\"matches\\": []}"}}]}
+        """;
+
+    private static final AtomicInteger aiCallsInFlight = new AtomicInteger();
+    private static final AtomicInteger peakAiCallsInFlight = new AtomicInteger();
+    private static final MockWebServer aiServer = startAiServer();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @DynamicPropertySource
+    static void aiServerUrl(DynamicPropertyRegistry registry) {
+        registry.add("openai.base-url", () -> aiServer.url("/").toString());
+    }
+
+    @AfterAll
+    static void stopAiServer() throws IOException {
+        aiServer.shutdown();
+    }
+
+    @Test
+    void reconciliationRunsUnderSlowAiBackend() {
+        // Given - one user per run, each with a payment only the AI can match
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_RUNS; i++) {
+            userIds.add(createUserWithUnmatchedPayment(i));
+        }
+        HttpClient client = HttpClient.newHttpClient();
+
+        // When
+        long started = System.nanoTime();
+        List<CompletableFuture<Long>> runs = userIds.stream()
+            .map(userId -> runReconciliation(client, userId))
+            .toList();
+        long[] latenciesMs = runs.stream().mapToLong(CompletableFuture::join).sorted().toArray();
+        long wallMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        // Then
+        System.out.printf("%n[benchmark] java %s, %d concurrent runs, AI delay %d ms%n",
+            Runtime.version().feature(), CONCURRENT_RUNS, AI_DELAY_MS);
+        System.out.printf("[benchmark] peak AI calls in flight %d, wall %d ms, throughput %.1f runs/s, p50 %d ms, p99 %d ms%n%n",
+            peakAiCallsInFlight.get(), wallMs, CONCURRENT_RUNS * 1000.0 / wallMs,
+            percentile(latenciesMs, 0.50), percentile(latenciesMs, 0.99));
+        assertThat(aiServer.getRequestCount()).isGreaterThanOrEqualTo(CONCURRENT_RUNS);
+    }
+
+    private CompletableFuture<Long> runReconciliation(HttpClient client, Long userId) {
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/api/reconciliation/run?userId=" + userId))
+            .POST(HttpRequest.BodyPublishers.noBody())
+            .build();
+        long sent = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .thenApply(response -> {
+                assertThat(response.statusCode()).isEqualTo(200);
+                return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sent);
+            });
+    }
+
+    private Long createUserWithUnmatchedPayment(int index) {
+        User user = new User();
+        user.setMobileNumber(String.format("8%09d", index));
+        user = userRepository.save(user);
+
+        Invoice invoice = new Invoice();
+        invoice.setUser(user);
+        invoice.setInvoiceNumber("BENCH-" + index);
+        invoice.setCustomerName("Customer " + index);
+        invoice.setTotalAmount(Money.of("1000.00"));
+        invoice.setPendingAmount(Money.of("1000.00"));
+        invoice.setStatus(InvoiceStatus.UNPAID);
+        invoice.setInvoiceDate(LocalDate.now());
+        invoiceRepository.save(invoice);
+
+        Payment payment = new Payment();
+        payment.setUser(user);
+        payment.setAmount(Money.of("250.00"));
+        payment.setPaymentDate(LocalDate.now());
+        payment.setPaymentMode(PaymentMode.UPI);
+        payment.setRemark("transfer");
+        payment.setStatus(PaymentStatus.UNRECONCILED);
+        paymentRepository.save(payment);
+
+        return user.getId();
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private static MockWebServer startAiServer() {
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                peakAiCallsInFlight.accumulateAndGet(aiCallsInFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(AI_DELAY_MS);
+                } finally {
+                    aiCallsInFlight.decrementAndGet();
+                }
+                return new MockResponse()
+                    .setHeader("Content-Type", "application/json")
+                    .setBody(AI_RESPONSE);
+            }
+        });
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return server;
+    }
+}
@@ -0,0 +1,54 @@
+package com.mybillbook.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldRoundToWholePaiseLikeTheColumn() {
+        // When
+        Money rounded = Money.of("1250.505");
+
+        // Then
+        assertThat(rounded.paise()).isEqualTo(125051);
+        assertThat(Money.of(new BigDecimal("400"))).isEqualTo(Money.ofPaise(40000));
+        assertThat(rounded.toString()).isEqualTo("1250.51");
+    }
+
+    @Test
+    void shouldFailInsteadOfOverflowing() {
+        // Given
+        Money max = Money.ofPaise(Long.MAX_VALUE);
+
+        // Then
+        assertThatThrownBy(() -> max.plus(Money.ofPaise(1))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.ofPaise(Long.MIN_VALUE).minus(Money.ofPaise(1))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.of("1e30")).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void shouldKeepTheJsonShapeOfADecimalAmount() throws Exception {
+        // Given
+        Wrapper wrapper = objectMapper.readValue("{\"amount\": 2500.5}", Wrapper.class);
+
+        // When
+        String json = objectMapper.writeValueAsString(wrapper);
+
+        // Then
+        assertThat(wrapper.amount()).isEqualTo(Money.ofPaise(250050));
+        assertThat(json).isEqualTo("{\"amount\":2500.50}");
+        assertThat(objectMapper.readValue("{\"amount\": \"99.99\"}", Wrapper.class).amount()).isEqualTo(Money.ofPaise(9999));
+        assertThat(objectMapper.readValue("{\"amount\": null}", Wrapper.class).amount()).isNull();
+    }
+
+    private record Wrapper(Money amount) {
+    }
+}
@@ -0,0 +1,86 @@
+package com.mybillbook.repository;
+
+import jakarta.persistence.EntityManager;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationState;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Applies every migration to an empty PostgreSQL and lets Hibernate validate the entities against
+ * the result; the context only starts when both succeed. Skipped when Docker is not available.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class FlywayMigrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", POSTGRES::getDriverClassName);
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void shouldApplyEveryMigration() {
+        // When
+        MigrationInfo[] applied = flyway.info().applied();
+
+        // Then
+        assertThat(applied).extracting(info -> info.getVersion().getVersion())
+            .containsExactly("1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13");
+        assertThat(Arrays.stream(applied).map(MigrationInfo::getState)).containsOnly(MigrationState.SUCCESS);
+        assertThat(flyway.info().pending()).isEmpty();
+    }
+
+    @Test
+    void shouldMoveSuggestionToItsResolvedPartition() {
+        // Given
+        execute("INSERT INTO users (id, mobile_number, name) VALUES (1, '9876543210', 'Ramesh Kumar')");
+        execute("INSERT INTO invoices (user_id, invoice_number, customer_name, total_amount, pending_amount, status, invoice_date) "
+            + "VALUES (1, 'INV001', 'Suresh Traders', 1000, 1000, 'UNPAID', CURRENT_DATE)");
+        execute("INSERT INTO payments (user_id, amount, payment_date, payment_mode, status, row_hash) "
+            + "VALUES (1, 1000, CURRENT_DATE, 'UPI', 'UNRECONCILED', 'hash-1')");
+        execute("INSERT INTO reconciliation_suggestions (payment_id, invoice_id, confidence, reasoning, status) "
+            + "SELECT p.id, i.id, 0.95, 'Remark mentions INV001', 'PENDING' FROM payments p, invoices i");
+
+        // When
+        execute("UPDATE reconciliation_suggestions SET status = 'CONFIRMED'");
+
+        // Then - the current year's partition was created by V11
+        Object partition = entityManager.createNativeQuery(
+            "SELECT CAST(CAST(tableoid AS regclass) AS text) FROM reconciliation_suggestions").getSingleResult();
+        assertThat(partition).asString().matches("reconciliation_suggestions_confirmed_\\d{4}");
+    }
+
+    private void execute(String sql) {
+        entityManager.createNativeQuery(sql).executeUpdate();
+    }
+}
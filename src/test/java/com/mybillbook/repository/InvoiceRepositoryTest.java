@@ -1,23 +1,31 @@
 package com.mybillbook.repository;
 
+import com.mybillbook.dto.InvoiceStatusTotals;
+import com.mybillbook.dto.InvoiceView;
 import com.mybillbook.enums.InvoiceStatus;
 import com.mybillbook.model.Invoice;
+import com.mybillbook.model.Money;
 import com.mybillbook.model.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @ActiveProfiles("test")
 class InvoiceRepositoryTest {
 
@@ -45,8 +53,8 @@ class InvoiceRepositoryTest {
         invoice.setUser(testUser);
         invoice.setInvoiceNumber("INV001");
         invoice.setCustomerName("Suresh Traders");
-        invoice.setTotalAmount(new BigDecimal("10000.00"));
-        invoice.setPendingAmount(new BigDecimal("10000.00"));
+        invoice.setTotalAmount(Money.of("10000.00"));
+        invoice.setPendingAmount(Money.of("10000.00"));
         invoice.setStatus(InvoiceStatus.UNPAID);
         invoice.setInvoiceDate(LocalDate.of(2025, 1, 15));
 
@@ -58,8 +66,8 @@ class InvoiceRepositoryTest {
         assertThat(foundInvoice).isNotNull();
         assertThat(foundInvoice.getInvoiceNumber()).isEqualTo("INV001");
         assertThat(foundInvoice.getCustomerName()).isEqualTo("Suresh Traders");
-        assertThat(foundInvoice.getTotalAmount()).isEqualByComparingTo("10000.00");
-        assertThat(foundInvoice.getPendingAmount()).isEqualByComparingTo("10000.00");
+        assertThat(foundInvoice.getTotalAmount()).isEqualTo(Money.of("10000.00"));
+        assertThat(foundInvoice.getPendingAmount()).isEqualTo(Money.of("10000.00"));
         assertThat(foundInvoice.getStatus()).isEqualTo(InvoiceStatus.UNPAID);
         assertThat(foundInvoice.getCreatedAt()).isNotNull();
         assertThat(foundInvoice.getUpdatedAt()).isNotNull();
@@ -112,6 +120,25 @@ class InvoiceRepositoryTest {
             .containsExactlyInAnyOrder("INV001", "INV002");
     }
 
+    @Test
+    void shouldSumInvoicesPerStatusInPaise() {
+        // Given
+        entityManager.persistAndFlush(createInvoice("INV001", "Customer1", "10000.50", "10000.50", InvoiceStatus.UNPAID));
+        entityManager.persistAndFlush(createInvoice("INV002", "Customer2", "20000", "10000.25", InvoiceStatus.PARTIALLY_PAID));
+        entityManager.persistAndFlush(createInvoice("INV003", "Customer3", "15000", "0", InvoiceStatus.FULLY_PAID));
+        entityManager.persistAndFlush(createInvoice("INV004", "Customer4", "0.01", "0", InvoiceStatus.FULLY_PAID));
+
+        // When
+        List<InvoiceStatusTotals> totals = invoiceRepository.sumByUserIdGroupByStatus(testUser.getId());
+
+        // Then
+        assertThat(totals).containsExactlyInAnyOrder(
+            new InvoiceStatusTotals(InvoiceStatus.UNPAID, 1, 1000050, 1000050),
+            new InvoiceStatusTotals(InvoiceStatus.PARTIALLY_PAID, 1, 2000000, 1000025),
+            new InvoiceStatusTotals(InvoiceStatus.FULLY_PAID, 2, 1500001, 0));
+        assertThat(invoiceRepository.sumByUserIdGroupByStatus(-1L)).isEmpty();
+    }
+
     @Test
     void shouldFindInvoiceByInvoiceNumber() {
         // Given
@@ -142,7 +169,7 @@ class InvoiceRepositoryTest {
         entityManager.persistAndFlush(invoice);
 
         // When
-        invoice.setPendingAmount(new BigDecimal("5000.00"));
+        invoice.setPendingAmount(Money.of("5000.00"));
         invoice.setStatus(InvoiceStatus.PARTIALLY_PAID);
         invoiceRepository.save(invoice);
         entityManager.flush();
@@ -150,7 +177,7 @@ class InvoiceRepositoryTest {
         // Then
         Invoice updatedInvoice = entityManager.find(Invoice.class, invoice.getId());
         assertThat(updatedInvoice.getStatus()).isEqualTo(InvoiceStatus.PARTIALLY_PAID);
-        assertThat(updatedInvoice.getPendingAmount()).isEqualByComparingTo("5000.00");
+        assertThat(updatedInvoice.getPendingAmount()).isEqualTo(Money.of("5000.00"));
     }
 
     @Test
@@ -171,14 +198,72 @@ class InvoiceRepositoryTest {
         }
     }
 
+    @Test
+    void shouldFindInvoiceViewsByUserIdAndStatusIn() {
+        // Given
+        entityManager.persistAndFlush(createInvoice("INV001", "Customer1", "10000", "10000", InvoiceStatus.UNPAID));
+        entityManager.persistAndFlush(createInvoice("INV002", "Customer2", "20000", "10000", InvoiceStatus.PARTIALLY_PAID));
+        entityManager.persistAndFlush(createInvoice("INV003", "Customer3", "15000", "0", InvoiceStatus.FULLY_PAID));
+
+        // When
+        List<InvoiceView> views = invoiceRepository.findViewsByUserIdAndStatusIn(
+            testUser.getId(), List.of(InvoiceStatus.PARTIALLY_PAID));
+
+        // Then
+        assertThat(views).hasSize(1);
+        InvoiceView view = views.get(0);
+        assertThat(view.invoiceNumber()).isEqualTo("INV002");
+        assertThat(view.totalAmount()).isEqualTo(Money.of("20000"));
+        assertThat(view.pendingAmount()).isEqualTo(Money.of("10000"));
+        assertThat(view.status()).isEqualTo(InvoiceStatus.PARTIALLY_PAID);
+    }
+
+    @Test
+    void shouldRejectUpdateFromStaleInvoiceVersion() {
+        // Given
+        Invoice invoice = entityManager.persistAndFlush(
+            createInvoice("INV001", "Suresh Traders", "10000.00", "10000.00", InvoiceStatus.UNPAID));
+        entityManager.detach(invoice);
+
+        Invoice concurrent = invoiceRepository.findById(invoice.getId()).orElseThrow();
+        concurrent.setPendingAmount(Money.of("6000.00"));
+        invoiceRepository.saveAndFlush(concurrent);
+
+        // When
+        invoice.setPendingAmount(Money.of("7000.00"));
+
+        // Then
+        assertThat(concurrent.getVersion()).isEqualTo(invoice.getVersion() + 1);
+        assertThatThrownBy(() -> invoiceRepository.saveAndFlush(invoice))
+            .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+
+    @Test
+    void shouldInsertOnlyInvoicesWithAFreeNumber() {
+        // Given
+        entityManager.persistAndFlush(createInvoice("INV-001", "Customer A", "10000", "10000", InvoiceStatus.UNPAID));
+        LocalDateTime now = LocalDateTime.now();
+
+        // When
+        int taken = invoiceRepository.insertIfAbsent(testUser.getId(), "INV-001", "Customer B",
+            new BigDecimal("500.00"), new BigDecimal("500.00"), "UNPAID", LocalDate.now(), now);
+        int free = invoiceRepository.insertIfAbsent(testUser.getId(), "INV-002", "Customer B",
+            new BigDecimal("500.00"), new BigDecimal("500.00"), "UNPAID", LocalDate.now(), now);
+
+        // Then
+        assertThat(taken).isZero();
+        assertThat(free).isEqualTo(1);
+        assertThat(invoiceRepository.findByInvoiceNumber("INV-002")).map(Invoice::getTotalAmount).contains(Money.of("500"));
+    }
+
     private Invoice createInvoice(String invoiceNumber, String customerName,
                                   String totalAmount, String pendingAmount, InvoiceStatus status) {
         Invoice invoice = new Invoice();
         invoice.setUser(testUser);
         invoice.setInvoiceNumber(invoiceNumber);
         invoice.setCustomerName(customerName);
-        invoice.setTotalAmount(new BigDecimal(totalAmount));
-        invoice.setPendingAmount(new BigDecimal(pendingAmount));
+        invoice.setTotalAmount(Money.of(totalAmount));
+        invoice.setPendingAmount(Money.of(pendingAmount));
         invoice.setStatus(status);
         invoice.setInvoiceDate(LocalDate.now());
         return invoice;
@@ -1,23 +1,32 @@
 package com.mybillbook.repository;
 
+import com.mybillbook.dto.PaymentStatusCount;
+import com.mybillbook.dto.PaymentView;
 import com.mybillbook.enums.PaymentMode;
 import com.mybillbook.enums.PaymentStatus;
+import com.mybillbook.model.Money;
 import com.mybillbook.model.Payment;
 import com.mybillbook.model.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @ActiveProfiles("test")
 class PaymentRepositoryTest {
 
@@ -43,7 +52,7 @@ class PaymentRepositoryTest {
         // Given
         Payment payment = new Payment();
         payment.setUser(testUser);
-        payment.setAmount(new BigDecimal("5000.00"));
+        payment.setAmount(Money.of("5000.00"));
         payment.setPaymentDate(LocalDate.of(2025, 1, 20));
         payment.setPaymentMode(PaymentMode.UPI);
         payment.setRemark("INV001 partial payment");
@@ -55,7 +64,7 @@ class PaymentRepositoryTest {
 
         // Then
         assertThat(foundPayment).isNotNull();
-        assertThat(foundPayment.getAmount()).isEqualByComparingTo("5000.00");
+        assertThat(foundPayment.getAmount()).isEqualTo(Money.of("5000.00"));
         assertThat(foundPayment.getPaymentDate()).isEqualTo(LocalDate.of(2025, 1, 20));
         assertThat(foundPayment.getPaymentMode()).isEqualTo(PaymentMode.UPI);
         assertThat(foundPayment.getRemark()).isEqualTo("INV001 partial payment");
@@ -110,6 +119,22 @@ class PaymentRepositoryTest {
         assertThat(allPayments).hasSize(2);
     }
 
+    @Test
+    void shouldCountPaymentsPerStatus() {
+        // Given
+        entityManager.persistAndFlush(createPayment("5000", PaymentMode.UPI, "Payment 1", PaymentStatus.UNRECONCILED));
+        entityManager.persistAndFlush(createPayment("10000", PaymentMode.CASH, "Payment 2", PaymentStatus.RECONCILED));
+        entityManager.persistAndFlush(createPayment("2500", PaymentMode.UPI, "Payment 3", PaymentStatus.RECONCILED));
+
+        // When
+        List<PaymentStatusCount> counts = paymentRepository.countByUserIdGroupByStatus(testUser.getId());
+
+        // Then
+        assertThat(counts).containsExactlyInAnyOrder(
+            new PaymentStatusCount(PaymentStatus.UNRECONCILED, 1),
+            new PaymentStatusCount(PaymentStatus.RECONCILED, 2));
+    }
+
     @Test
     void shouldUpdatePaymentStatus() {
         // Given
@@ -131,7 +156,7 @@ class PaymentRepositoryTest {
         // Given
         Payment payment = new Payment();
         payment.setUser(testUser);
-        payment.setAmount(new BigDecimal("3000.00"));
+        payment.setAmount(Money.of("3000.00"));
         payment.setPaymentDate(LocalDate.now());
         payment.setPaymentMode(PaymentMode.CASH);
         payment.setRemark(null);
@@ -173,10 +198,91 @@ class PaymentRepositoryTest {
             );
     }
 
+    @Test
+    void shouldStreamPaymentViewsInIdOrder() {
+        // Given
+        Payment payment1 = createPayment("5000", PaymentMode.UPI, "Payment 1", PaymentStatus.UNRECONCILED);
+        Payment payment2 = createPayment("7000", PaymentMode.CARD, "Payment 2", PaymentStatus.RECONCILED);
+
+        entityManager.persistAndFlush(payment1);
+        entityManager.persistAndFlush(payment2);
+
+        // When
+        List<PaymentView> views;
+        try (Stream<PaymentView> stream = paymentRepository.streamViewsByUserId(testUser.getId())) {
+            views = stream.toList();
+        }
+
+        // Then
+        assertThat(views).extracting(PaymentView::id).containsExactly(payment1.getId(), payment2.getId());
+        assertThat(views.get(1).status()).isEqualTo(PaymentStatus.RECONCILED);
+    }
+
+    @Test
+    void shouldInsertOnlyPaymentsWithANewRowHash() {
+        // Given
+        Payment stored = createPayment("5000", PaymentMode.UPI, "Payment 1", PaymentStatus.UNRECONCILED);
+        stored.setRowHash("hash-1");
+        entityManager.persistAndFlush(stored);
+        LocalDateTime now = LocalDateTime.now();
+
+        // When
+        int repeated = paymentRepository.insertIfAbsent(testUser.getId(), new BigDecimal("5000.00"), LocalDate.now(),
+            "UPI", "Payment 1", "UNRECONCILED", "hash-1", now);
+        int hashed = paymentRepository.insertIfAbsent(testUser.getId(), new BigDecimal("5000.00"), LocalDate.now(),
+            "UPI", "Payment 1", "UNRECONCILED", "hash-2", now);
+        int unhashed = paymentRepository.insertIfAbsent(testUser.getId(), new BigDecimal("5000.00"), LocalDate.now(),
+            "UPI", null, "UNRECONCILED", null, now);
+
+        // Then
+        assertThat(repeated).isZero();
+        assertThat(hashed).isEqualTo(1);
+        assertThat(unhashed).isEqualTo(1);
+        assertThat(paymentRepository.findByUserId(testUser.getId())).hasSize(3);
+    }
+
+    @Test
+    void shouldRejectDuplicateRowHashForSameUser() {
+        // Given
+        Payment stored = createPayment("5000", PaymentMode.UPI, "Payment 1", PaymentStatus.UNRECONCILED);
+        stored.setRowHash("hash-1");
+        entityManager.persistAndFlush(stored);
+
+        Payment duplicate = createPayment("5000", PaymentMode.UPI, "Payment 1", PaymentStatus.UNRECONCILED);
+        duplicate.setRowHash("hash-1");
+
+        // When / Then
+        assertThatThrownBy(() -> paymentRepository.saveAndFlush(duplicate))
+            .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void shouldFindUnreconciledPaymentsAfterWatermark() {
+        // Given
+        Payment seen = createPayment("1000", PaymentMode.UPI, "Seen", PaymentStatus.UNRECONCILED);
+        entityManager.persistAndFlush(seen);
+        Payment fresh = createPayment("2000", PaymentMode.CASH, "Fresh", PaymentStatus.UNRECONCILED);
+        Payment freshReconciled = createPayment("3000", PaymentMode.CARD, "Fresh reconciled", PaymentStatus.RECONCILED);
+        entityManager.persistAndFlush(fresh);
+        entityManager.persistAndFlush(freshReconciled);
+
+        // When
+        List<Payment> newPayments = paymentRepository.findByUserIdAndStatusAndIdGreaterThan(
+            testUser.getId(), PaymentStatus.UNRECONCILED, seen.getId());
+        List<Payment> earlierPayments = paymentRepository.findByUserIdAndStatusAndIdLessThanEqual(
+            testUser.getId(), PaymentStatus.UNRECONCILED, seen.getId());
+        Long maxId = paymentRepository.findMaxIdByUserId(testUser.getId());
+
+        // Then
+        assertThat(newPayments).extracting(Payment::getRemark).containsExactly("Fresh");
+        assertThat(earlierPayments).extracting(Payment::getRemark).containsExactly("Seen");
+        assertThat(maxId).isEqualTo(freshReconciled.getId());
+    }
+
     private Payment createPayment(String amount, PaymentMode mode, String remark, PaymentStatus status) {
         Payment payment = new Payment();
         payment.setUser(testUser);
-        payment.setAmount(new BigDecimal(amount));
+        payment.setAmount(Money.of(amount));
         payment.setPaymentDate(LocalDate.now());
         payment.setPaymentMode(mode);
         payment.setRemark(remark);
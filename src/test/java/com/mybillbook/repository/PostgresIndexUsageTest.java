@@ -0,0 +1,127 @@
+package com.mybillbook.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the Flyway schema on a real PostgreSQL and checks the plan of each hot repository query,
+ * so a migration or query change that silently drops a query back to a sequential scan fails
+ * here. Sequential scans are disabled per transaction because the seeded tables are tiny.
+ * Skipped when Docker is not available.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class PostgresIndexUsageTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", POSTGRES::getDriverClassName);
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        execute("INSERT INTO users (id, mobile_number, name) VALUES (1, '9876543210', 'Ramesh Kumar')");
+        execute("INSERT INTO invoices (user_id, invoice_number, customer_name, total_amount, pending_amount, status, invoice_date) "
+            + "VALUES (1, 'INV001', 'Suresh Traders', 1000, 1000, 'UNPAID', CURRENT_DATE)");
+        execute("INSERT INTO payments (user_id, amount, payment_date, payment_mode, status, row_hash) "
+            + "VALUES (1, 1000, CURRENT_DATE, 'UPI', 'UNRECONCILED', 'hash-1')");
+        execute("INSERT INTO reconciliation_suggestions (payment_id, invoice_id, confidence, reasoning, status) "
+            + "SELECT p.id, i.id, 0.95, 'Remark mentions INV001', 'PENDING' FROM payments p, invoices i");
+        execute("ANALYZE");
+        execute("SET LOCAL enable_seqscan = off");
+    }
+
+    @Test
+    void invoiceNumberLookupShouldUseUniqueIndex() {
+        assertThat(explain("SELECT invoice_number FROM invoices WHERE invoice_number IN ('INV001', 'INV002')"))
+            .contains("invoices_invoice_number_key");
+    }
+
+    @Test
+    void latestInvoiceUpdateShouldUseUserUpdatedIndex() {
+        assertThat(explain("SELECT MAX(updated_at) FROM invoices WHERE user_id = 1"))
+            .contains("idx_invoices_user_updated");
+    }
+
+    @Test
+    void latestPaymentIdShouldUseUserIdIndex() {
+        assertThat(explain("SELECT MAX(id) FROM payments WHERE user_id = 1"))
+            .contains("idx_payments_user_id");
+    }
+
+    @Test
+    void unreconciledPaymentsAfterWatermarkShouldUsePartialIndex() {
+        assertThat(explain("SELECT * FROM payments WHERE user_id = 1 AND status = 'UNRECONCILED' AND id > 0"))
+            .contains("idx_payments_user_unreconciled");
+    }
+
+    @Test
+    void rowHashLookupShouldUseUniqueIndex() {
+        // With a single payment both user indexes cost the same; a real upload history tips it
+        execute("INSERT INTO payments (user_id, amount, payment_date, payment_mode, status, row_hash) "
+            + "SELECT 1, 1000, CURRENT_DATE, 'UPI', 'RECONCILED', 'seed-' || n FROM generate_series(1, 2000) n");
+        execute("ANALYZE payments");
+
+        assertThat(explain("SELECT row_hash FROM payments WHERE user_id = 1 AND row_hash IN ('hash-1', 'hash-2')"))
+            .contains("uq_payments_user_row_hash");
+    }
+
+    @Test
+    void pendingSuggestionCheckShouldUseIndexOnPendingPartitionOnly() {
+        String plan = explain("SELECT id FROM reconciliation_suggestions WHERE payment_id = 1 AND status = 'PENDING' LIMIT 1");
+
+        assertThat(plan)
+            .contains("Index")
+            .contains("reconciliation_suggestions_pending")
+            .doesNotContain("reconciliation_suggestions_confirmed")
+            .doesNotContain("reconciliation_suggestions_rejected");
+    }
+
+    @Test
+    void suggestionsByStatusShouldTouchOnlyOnePartition() {
+        String plan = explain("SELECT * FROM reconciliation_suggestions WHERE status = 'CONFIRMED'");
+
+        assertThat(plan)
+            .contains("reconciliation_suggestions_confirmed")
+            .doesNotContain("reconciliation_suggestions_pending")
+            .doesNotContain("reconciliation_suggestions_rejected");
+    }
+
+    @SuppressWarnings("unchecked")
+    private String explain(String sql) {
+        List<Object> rows = entityManager.createNativeQuery("EXPLAIN " + sql).getResultList();
+        return rows.stream().map(Object::toString).collect(Collectors.joining("\n"));
+    }
+
+    private void execute(String sql) {
+        entityManager.createNativeQuery(sql).executeUpdate();
+    }
+}
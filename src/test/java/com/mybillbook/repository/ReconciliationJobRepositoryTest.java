@@ -0,0 +1,135 @@
+package com.mybillbook.repository;
+
+import com.mybillbook.enums.ReconciliationJobStatus;
+import com.mybillbook.model.ReconciliationJob;
+import com.mybillbook.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class ReconciliationJobRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ReconciliationJobRepository jobRepository;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User();
+        testUser.setMobileNumber("9876543210");
+        testUser.setName("Ramesh Kumar");
+        testUser.setBusinessName("Ramesh Traders");
+        entityManager.persistAndFlush(testUser);
+    }
+
+    @Test
+    void shouldLockOnlyDueQueuedJobs() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        ReconciliationJob due = createJob(testUser.getId(), ReconciliationJobStatus.QUEUED, now.minusMinutes(1));
+        ReconciliationJob later = createJob(testUser.getId(), ReconciliationJobStatus.QUEUED, now.plusMinutes(10));
+        ReconciliationJob done = createJob(testUser.getId(), ReconciliationJobStatus.DONE, now.minusMinutes(5));
+
+        entityManager.persistAndFlush(due);
+        entityManager.persistAndFlush(later);
+        entityManager.persistAndFlush(done);
+
+        // When
+        List<ReconciliationJob> claimable = jobRepository.lockDueJobs(now, 10);
+
+        // Then
+        assertThat(claimable).extracting(ReconciliationJob::getId).containsExactly(due.getId());
+    }
+
+    @Test
+    void shouldNotLockJobsForUserWithRunningJob() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        entityManager.persistAndFlush(createJob(testUser.getId(), ReconciliationJobStatus.RUNNING, now.minusMinutes(2)));
+        entityManager.persistAndFlush(createJob(testUser.getId(), ReconciliationJobStatus.QUEUED, now.minusMinutes(1)));
+
+        // When
+        List<ReconciliationJob> claimable = jobRepository.lockDueJobs(now, 10);
+
+        // Then
+        assertThat(claimable).isEmpty();
+    }
+
+    @Test
+    void shouldRequeueStaleRunningJobs() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        ReconciliationJob stale = createJob(testUser.getId(), ReconciliationJobStatus.RUNNING, now.minusHours(2));
+        stale.setLockedAt(now.minusHours(1));
+        entityManager.persistAndFlush(stale);
+
+        // When
+        int requeued = jobRepository.requeueStale(now.minusMinutes(30), now);
+        entityManager.clear();
+
+        // Then
+        assertThat(requeued).isEqualTo(1);
+        assertThat(jobRepository.existsByUserIdAndStatus(testUser.getId(), ReconciliationJobStatus.QUEUED)).isTrue();
+    }
+
+    @Test
+    void shouldCloseStaleJobsWhoseUserHasAnotherQueued() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        ReconciliationJob stale = createJob(testUser.getId(), ReconciliationJobStatus.RUNNING, now.minusHours(2));
+        stale.setLockedAt(now.minusHours(1));
+        entityManager.persistAndFlush(stale);
+        entityManager.persistAndFlush(createJob(testUser.getId(), ReconciliationJobStatus.QUEUED, now.minusMinutes(1)));
+
+        // When
+        int requeued = jobRepository.requeueStale(now.minusMinutes(30), now);
+        int closed = jobRepository.closeStale(now.minusMinutes(30), "superseded",
+            ReconciliationJobStatus.RUNNING, ReconciliationJobStatus.FAILED);
+        entityManager.clear();
+
+        // Then
+        assertThat(requeued).isZero();
+        assertThat(closed).isEqualTo(1);
+        assertThat(jobRepository.findById(stale.getId())).get()
+            .extracting(ReconciliationJob::getStatus).isEqualTo(ReconciliationJobStatus.FAILED);
+    }
+
+    @Test
+    void shouldPurgeOnlyFinishedJobs() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        entityManager.persistAndFlush(createJob(testUser.getId(), ReconciliationJobStatus.DONE, now.minusDays(10)));
+        ReconciliationJob failed = createJob(testUser.getId(), ReconciliationJobStatus.FAILED, now.minusDays(10));
+        entityManager.persistAndFlush(failed);
+
+        // When
+        int purged = jobRepository.deleteByStatusAndUpdatedAtBefore(ReconciliationJobStatus.DONE, now.plusMinutes(1));
+        entityManager.clear();
+
+        // Then
+        assertThat(purged).isEqualTo(1);
+        assertThat(jobRepository.findAll()).extracting(ReconciliationJob::getId).containsExactly(failed.getId());
+    }
+
+    private ReconciliationJob createJob(Long userId, ReconciliationJobStatus status, LocalDateTime availableAt) {
+        ReconciliationJob job = new ReconciliationJob();
+        job.setUserId(userId);
+        job.setStatus(status);
+        job.setAvailableAt(availableAt);
+        return job;
+    }
+}
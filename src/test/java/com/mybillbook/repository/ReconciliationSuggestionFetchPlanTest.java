@@ -0,0 +1,174 @@
+package com.mybillbook.repository;
+
+import com.mybillbook.dto.SuggestionStatusCount;
+import com.mybillbook.dto.SuggestionView;
+import com.mybillbook.enums.InvoiceStatus;
+import com.mybillbook.enums.PaymentMode;
+import com.mybillbook.enums.PaymentStatus;
+import com.mybillbook.enums.SuggestionStatus;
+import com.mybillbook.model.Invoice;
+import com.mybillbook.model.Money;
+import com.mybillbook.model.Payment;
+import com.mybillbook.model.ReconciliationSuggestion;
+import com.mybillbook.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Asserts how many SQL statements each suggestion read path issues, so an association that
+ * silently starts loading row by row fails the build instead of production.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class ReconciliationSuggestionFetchPlanTest {
+
+    private static final int SUGGESTIONS = 5;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ReconciliationSuggestionRepository suggestionRepository;
+
+    private Statistics statistics;
+    private User testUser;
+    private String allocationGroup;
+    private Long firstSuggestionId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+            .unwrap(SessionFactory.class).getStatistics();
+
+        testUser = new User();
+        testUser.setMobileNumber("9876543210");
+        testUser.setName("Ramesh Kumar");
+        testUser.setBusinessName("Ramesh Traders");
+        entityManager.persist(testUser);
+
+        // Each suggestion points at its own payment and invoice, the worst case for N+1 loading
+        allocationGroup = UUID.randomUUID().toString();
+        for (int i = 0; i < SUGGESTIONS; i++) {
+            Payment payment = new Payment();
+            payment.setUser(testUser);
+            payment.setAmount(Money.of("1000.00"));
+            payment.setPaymentDate(LocalDate.now());
+            payment.setPaymentMode(PaymentMode.UPI);
+            payment.setRemark("INV00" + i);
+            payment.setStatus(PaymentStatus.UNRECONCILED);
+            entityManager.persist(payment);
+
+            Invoice invoice = new Invoice();
+            invoice.setUser(testUser);
+            invoice.setInvoiceNumber("INV00" + i);
+            invoice.setCustomerName("Suresh Traders");
+            invoice.setTotalAmount(Money.of("1000.00"));
+            invoice.setPendingAmount(Money.of("1000.00"));
+            invoice.setStatus(InvoiceStatus.UNPAID);
+            invoice.setInvoiceDate(LocalDate.now());
+            entityManager.persist(invoice);
+
+            ReconciliationSuggestion suggestion = new ReconciliationSuggestion();
+            suggestion.setPayment(payment);
+            suggestion.setInvoice(invoice);
+            suggestion.setConfidence(new BigDecimal("0.95"));
+            suggestion.setReasoning("Remark mentions INV00" + i);
+            suggestion.setStatus(i == 0 ? SuggestionStatus.REJECTED : SuggestionStatus.PENDING);
+            suggestion.setAllocationGroup(allocationGroup);
+            entityManager.persist(suggestion);
+            if (i == 0) {
+                firstSuggestionId = suggestion.getId();
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void listViewShouldLoadInOneStatement() {
+        // When
+        List<SuggestionView> views = suggestionRepository.findViewsByUserIdAndStatus(testUser.getId(), SuggestionStatus.PENDING);
+        views.forEach(view -> assertThat(view.payment().amount()).isNotNull());
+
+        // Then
+        assertThat(views).hasSize(SUGGESTIONS - 1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void confirmPathShouldLoadSuggestionWithPaymentAndInvoiceInOneStatement() {
+        // When
+        ReconciliationSuggestion suggestion = suggestionRepository.findWithPaymentAndInvoiceById(firstSuggestionId).orElseThrow();
+        suggestion.getPayment().getAmount();
+        suggestion.getInvoice().getPendingAmount();
+
+        // Then
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void allocationGroupShouldLoadMembersWithPaymentsAndInvoicesInOneStatement() {
+        // When
+        List<ReconciliationSuggestion> members =
+            suggestionRepository.findByAllocationGroupAndStatus(allocationGroup, SuggestionStatus.PENDING);
+        members.forEach(member -> {
+            member.getPayment().getAmount();
+            member.getInvoice().getPendingAmount();
+        });
+
+        // Then
+        assertThat(members).hasSize(SUGGESTIONS - 1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void reportPathShouldCountWithoutLoadingEntities() {
+        // When
+        List<SuggestionStatusCount> counts = suggestionRepository.countByUserIdAndStatusIn(
+            testUser.getId(), List.of(SuggestionStatus.PENDING, SuggestionStatus.REJECTED));
+
+        // Then
+        assertThat(counts).containsExactlyInAnyOrder(
+            new SuggestionStatusCount(SuggestionStatus.PENDING, SUGGESTIONS - 1),
+            new SuggestionStatusCount(SuggestionStatus.REJECTED, 1));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void bulkConfirmShouldSelectOnlyIds() {
+        // When
+        List<Long> ids = suggestionRepository.findIdsByUserIdAndStatusAndMinConfidence(
+            testUser.getId(), SuggestionStatus.PENDING, new BigDecimal("0.90"));
+
+        // Then
+        assertThat(ids).hasSize(SUGGESTIONS - 1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void statusQueriesShouldNotLoadAssociations() {
+        // When
+        List<ReconciliationSuggestion> pending = suggestionRepository.findByStatus(SuggestionStatus.PENDING);
+
+        // Then
+        assertThat(pending).hasSize(SUGGESTIONS - 1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -1,10 +1,13 @@
 package com.mybillbook.repository;
 
+import com.mybillbook.dto.SuggestionView;
 import com.mybillbook.enums.InvoiceStatus;
+import com.mybillbook.enums.MatchType;
 import com.mybillbook.enums.PaymentMode;
 import com.mybillbook.enums.PaymentStatus;
 import com.mybillbook.enums.SuggestionStatus;
 import com.mybillbook.model.Invoice;
+import com.mybillbook.model.Money;
 import com.mybillbook.model.Payment;
 import com.mybillbook.model.ReconciliationSuggestion;
 import com.mybillbook.model.User;
@@ -18,6 +21,7 @@ import org.springframework.test.context.ActiveProfiles;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -49,8 +53,8 @@ class ReconciliationSuggestionRepositoryTest {
         testInvoice.setUser(testUser);
         testInvoice.setInvoiceNumber("INV001");
         testInvoice.setCustomerName("Suresh Traders");
-        testInvoice.setTotalAmount(new BigDecimal("10000.00"));
-        testInvoice.setPendingAmount(new BigDecimal("10000.00"));
+        testInvoice.setTotalAmount(Money.of("10000.00"));
+        testInvoice.setPendingAmount(Money.of("10000.00"));
         testInvoice.setStatus(InvoiceStatus.UNPAID);
         testInvoice.setInvoiceDate(LocalDate.now());
         entityManager.persistAndFlush(testInvoice);
@@ -58,7 +62,7 @@ class ReconciliationSuggestionRepositoryTest {
         // Create payment
         testPayment = new Payment();
         testPayment.setUser(testUser);
-        testPayment.setAmount(new BigDecimal("5000.00"));
+        testPayment.setAmount(Money.of("5000.00"));
         testPayment.setPaymentDate(LocalDate.now());
         testPayment.setPaymentMode(PaymentMode.UPI);
         testPayment.setRemark("INV001 partial");
@@ -192,6 +196,77 @@ class ReconciliationSuggestionRepositoryTest {
         assertThat(updated.getConfirmedAt()).isNotNull();
     }
 
+    @Test
+    void shouldFindSuggestionsByAllocationGroup() {
+        // Given
+        ReconciliationSuggestion member1 = createSuggestion(testPayment, testInvoice, "0.90", SuggestionStatus.PENDING);
+        member1.setMatchType(MatchType.SPLIT_ALLOCATION);
+        member1.setAllocatedAmount(Money.of("2000.00"));
+        member1.setAllocationGroup("group-1");
+        ReconciliationSuggestion member2 = createSuggestion(testPayment, testInvoice, "0.90", SuggestionStatus.PENDING);
+        member2.setMatchType(MatchType.SPLIT_ALLOCATION);
+        member2.setAllocatedAmount(Money.of("3000.00"));
+        member2.setAllocationGroup("group-1");
+        ReconciliationSuggestion standalone = createSuggestion(testPayment, testInvoice, "0.80", SuggestionStatus.PENDING);
+
+        entityManager.persistAndFlush(member1);
+        entityManager.persistAndFlush(member2);
+        entityManager.persistAndFlush(standalone);
+
+        // When
+        List<ReconciliationSuggestion> group =
+            suggestionRepository.findByAllocationGroupAndStatus("group-1", SuggestionStatus.PENDING);
+
+        // Then
+        assertThat(group).hasSize(2);
+        assertThat(group)
+            .extracting(ReconciliationSuggestion::getAllocatedAmount)
+            .containsExactlyInAnyOrder(Money.of("2000.00"), Money.of("3000.00"));
+        assertThat(standalone.getMatchType()).isEqualTo(MatchType.AI);
+    }
+
+    @Test
+    void shouldFindPaymentIdsWithPendingSuggestions() {
+        // Given
+        Payment payment2 = createPayment("3000", "Payment 2");
+        entityManager.persistAndFlush(payment2);
+        entityManager.persistAndFlush(createSuggestion(testPayment, testInvoice, "0.90", SuggestionStatus.PENDING));
+        entityManager.persistAndFlush(createSuggestion(testPayment, testInvoice, "0.70", SuggestionStatus.PENDING));
+        entityManager.persistAndFlush(createSuggestion(payment2, testInvoice, "0.95", SuggestionStatus.REJECTED));
+
+        // When
+        Set<Long> paymentIds = suggestionRepository.findPaymentIdsByUserIdAndStatus(testUser.getId(), SuggestionStatus.PENDING);
+
+        // Then
+        assertThat(paymentIds).containsExactly(testPayment.getId());
+    }
+
+    @Test
+    void shouldFindSuggestionViewsForUser() {
+        // Given
+        User otherUser = new User();
+        otherUser.setMobileNumber("9123456780");
+        entityManager.persistAndFlush(otherUser);
+        Payment otherPayment = createPayment("2000", "Other user");
+        otherPayment.setUser(otherUser);
+        entityManager.persistAndFlush(otherPayment);
+
+        entityManager.persistAndFlush(createSuggestion(testPayment, testInvoice, "0.90", SuggestionStatus.PENDING));
+        entityManager.persistAndFlush(createSuggestion(testPayment, testInvoice, "0.80", SuggestionStatus.REJECTED));
+        entityManager.persistAndFlush(createSuggestion(otherPayment, testInvoice, "0.70", SuggestionStatus.PENDING));
+
+        // When
+        List<SuggestionView> views = suggestionRepository.findViewsByUserIdAndStatus(testUser.getId(), SuggestionStatus.PENDING);
+
+        // Then
+        assertThat(views).hasSize(1);
+        SuggestionView view = views.get(0);
+        assertThat(view.confidence()).isEqualByComparingTo("0.90");
+        assertThat(view.payment().id()).isEqualTo(testPayment.getId());
+        assertThat(view.payment().remark()).isEqualTo("INV001 partial");
+        assertThat(view.invoice().invoiceNumber()).isEqualTo("INV001");
+    }
+
     private ReconciliationSuggestion createSuggestion(Payment payment, Invoice invoice,
                                                      String confidence, SuggestionStatus status) {
         ReconciliationSuggestion suggestion = new ReconciliationSuggestion();
@@ -207,7 +282,7 @@ class ReconciliationSuggestionRepositoryTest {
     private Payment createPayment(String amount, String remark) {
         Payment payment = new Payment();
         payment.setUser(testUser);
-        payment.setAmount(new BigDecimal(amount));
+        payment.setAmount(Money.of(amount));
         payment.setPaymentDate(LocalDate.now());
         payment.setPaymentMode(PaymentMode.CASH);
         payment.setRemark(remark);
@@ -3,6 +3,7 @@ package com.mybillbook.repository;
 import com.mybillbook.model.User;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
@@ -12,6 +13,7 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @ActiveProfiles("test")
 class UserRepositoryTest {
 
@@ -88,4 +90,43 @@ class UserRepositoryTest {
             assertThat(e).isNotNull();
         }
     }
+
+    @Test
+    void shouldInsertOnlyWhenMobileNumberIsFree() {
+        // Given
+        User existing = new User();
+        existing.setMobileNumber("9876543210");
+        existing.setName("Existing");
+        entityManager.persistAndFlush(existing);
+
+        // When
+        int duplicate = userRepository.insertIfAbsent("9876543210", "Other", null);
+        int fresh = userRepository.insertIfAbsent("9123456780", "New", "New Traders");
+
+        // Then
+        assertThat(duplicate).isZero();
+        assertThat(fresh).isEqualTo(1);
+        assertThat(userRepository.findByMobileNumber("9876543210")).map(User::getName).contains("Existing");
+        assertThat(userRepository.findByMobileNumber("9123456780")).map(User::getCreatedAt).isPresent();
+    }
+
+    @Test
+    void shouldIncrementDataVersionIndependentlyOfEntitySaves() {
+        // Given
+        User user = new User();
+        user.setMobileNumber("9876543210");
+        user.setName("Ramesh Kumar");
+        user = entityManager.persistAndFlush(user);
+        Long userId = user.getId();
+
+        // When - a save of the (stale) entity after the bump must not reset the counter
+        userRepository.incrementDataVersion(userId);
+        userRepository.incrementDataVersion(userId);
+        user.setName("Ramesh K");
+        userRepository.saveAndFlush(user);
+
+        // Then
+        assertThat(userRepository.findDataVersionById(userId)).contains(2L);
+        assertThat(userRepository.findDataVersionById(-1L)).isEmpty();
+    }
 }
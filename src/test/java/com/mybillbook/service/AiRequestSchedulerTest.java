@@ -0,0 +1,81 @@
+package com.mybillbook.service;
+
+import com.mybillbook.exception.OpenAIServiceException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class AiRequestSchedulerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AiRequestScheduler scheduler;
+    private final ExecutorService callers = Executors.newSingleThreadExecutor();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new AiRequestScheduler(meterRegistry);
+        ReflectionTestUtils.setField(scheduler, "globalRequestsPerMinute", 1000L);
+        ReflectionTestUtils.setField(scheduler, "globalTokensPerMinute", 1_000_000L);
+        ReflectionTestUtils.setField(scheduler, "userRequestsPerMinute", 2L);
+        ReflectionTestUtils.setField(scheduler, "userTokensPerMinute", 100_000L);
+        ReflectionTestUtils.setField(scheduler, "maxConcurrentCalls", 4);
+        scheduler.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        scheduler.stop();
+        callers.shutdownNow();
+        assertThat(callers.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void shouldNotLetThrottledUserBlockOtherUsers() {
+        // Given - user 1 exhausts their per-minute request budget
+        scheduler.execute(1L, 100, () -> "first");
+        scheduler.execute(1L, 100, () -> "second");
+        CompletableFuture<String> throttled = CompletableFuture.supplyAsync(() -> scheduler.execute(1L, 100, () -> "third"), callers);
+
+        // When / Then - user 2 is still admitted immediately
+        String result = assertTimeoutPreemptively(Duration.ofSeconds(2), () -> scheduler.execute(2L, 100, () -> "other"));
+        assertThat(result).isEqualTo("other");
+        assertThat(throttled).isNotDone();
+        assertThat(meterRegistry.get("ai.scheduler.queue.depth").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldReleaseWaitingCallsWhenStopped() {
+        // Given
+        scheduler.execute(1L, 100, () -> "first");
+        scheduler.execute(1L, 100, () -> "second");
+        CompletableFuture<String> throttled = CompletableFuture.supplyAsync(() -> scheduler.execute(1L, 100, () -> "third"), callers);
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+            while (meterRegistry.get("ai.scheduler.queue.depth").gauge().value() < 1.0) {
+                Thread.onSpinWait();
+            }
+        });
+
+        // When
+        scheduler.stop();
+
+        // Then
+        assertThatThrownBy(() -> throttled.orTimeout(2, TimeUnit.SECONDS).join())
+            .isInstanceOf(CompletionException.class)
+            .hasCauseInstanceOf(OpenAIServiceException.class);
+        assertThat(meterRegistry.get("ai.scheduler.queue.depth").gauge().value()).isZero();
+    }
+}
@@ -0,0 +1,95 @@
+package com.mybillbook.service;
+
+import com.mybillbook.model.User;
+import com.mybillbook.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Every login commits on its own, as it does behind the controller, so the test is not transactional
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({AuthService.class, UserCache.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AuthServiceTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void shouldRegisterOnlyWhenMobileNumberIsFree() {
+        // Given
+        User existing = new User();
+        existing.setMobileNumber("9876543210");
+        existing.setName("Existing");
+        existing = userRepository.save(existing);
+
+        // When
+        User returning = authService.login("9876543210", "Other", null);
+        User fresh = authService.login("9123456780", "New", "New Traders");
+
+        // Then
+        assertThat(returning.getId()).isEqualTo(existing.getId());
+        assertThat(returning.getName()).isEqualTo("Existing");
+        assertThat(fresh.getId()).isNotNull();
+        assertThat(userRepository.findByMobileNumber("9123456780")).map(User::getBusinessName).contains("New Traders");
+    }
+
+    @Test
+    void shouldRegisterOnceUnderConcurrentFirstLogins() throws Exception {
+        // Given
+        int threads = 32;
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<User>> logins = new ArrayList<>();
+
+        try {
+            // When - one virtual thread per login, as the prod profile serves requests
+            for (int i = 0; i < threads; i++) {
+                logins.add(executor.submit(() -> {
+                    start.await();
+                    return authService.login("9555555555", "Burst", null);
+                }));
+            }
+            start.countDown();
+
+            List<Long> userIds = new ArrayList<>();
+            for (Future<User> login : logins) {
+                userIds.add(login.get().getId());
+            }
+
+            // Then - no caller failed, and all of them got the one row that was created
+            assertThat(userIds).hasSize(threads).containsOnly(userIds.get(0));
+            assertThat(userRepository.findAll())
+                .filteredOn(user -> user.getMobileNumber().equals("9555555555"))
+                .hasSize(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.mybillbook.service;
+
+import com.mybillbook.model.User;
+import com.mybillbook.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+
+// Bumps commit or roll back with the write, so every transaction here is a real one
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(DataVersionService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DataVersionServiceTest {
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @SpyBean
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setMobileNumber("9876543210");
+        user.setName("Ramesh Kumar");
+        userId = userRepository.save(user).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void shouldBumpTogetherWithTheWrite() {
+        // When
+        Long versionInsideWrite = transactionTemplate.execute(status -> {
+            dataVersionService.bump(userId);
+            return userRepository.findDataVersionById(userId).orElseThrow();
+        });
+
+        // Then - the write saw its own bump, and the commit kept it
+        assertThat(versionInsideWrite).isEqualTo(1L);
+        assertThat(userRepository.findDataVersionById(userId)).contains(1L);
+        assertThat(dataVersionService.eTag(userId)).isEqualTo("W/\"" + userId + "-1\"");
+    }
+
+    @Test
+    void shouldNotBumpWhenTheWriteRollsBack() {
+        // When
+        transactionTemplate.executeWithoutResult(status -> {
+            dataVersionService.bump(userId);
+            dataVersionService.bumpAll();
+            status.setRollbackOnly();
+        });
+
+        // Then
+        assertThat(userRepository.findDataVersionById(userId)).contains(0L);
+    }
+
+    @Test
+    void shouldRollBackTheWriteWhenTheBumpFails() {
+        // Given
+        doThrow(new QueryTimeoutException("canceling statement due to lock timeout"))
+            .when(userRepository).incrementDataVersion(userId);
+
+        // When - a write renames the user, then fails to bump the version
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            User user = userRepository.findById(userId).orElseThrow();
+            user.setName("Renamed");
+            userRepository.saveAndFlush(user);
+            dataVersionService.bump(userId);
+        })).isInstanceOf(QueryTimeoutException.class);
+
+        // Then - no change is left behind under the old version
+        assertThat(userRepository.findById(userId)).map(User::getName).contains("Ramesh Kumar");
+        assertThat(userRepository.findDataVersionById(userId)).contains(0L);
+    }
+
+    @Test
+    void shouldBumpRightAwayOutsideATransaction() {
+        // When
+        dataVersionService.bump(userId);
+        dataVersionService.bumpAll();
+
+        // Then
+        assertThat(userRepository.findDataVersionById(userId)).contains(2L);
+    }
+}
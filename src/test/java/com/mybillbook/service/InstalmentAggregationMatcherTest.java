@@ -0,0 +1,121 @@
+package com.mybillbook.service;
+
+import com.mybillbook.model.Invoice;
+import com.mybillbook.model.Money;
+import com.mybillbook.model.Payment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InstalmentAggregationMatcherTest {
+
+    private static final LocalDate INVOICE_DATE = LocalDate.of(2024, 3, 1);
+
+    private final InstalmentAggregationMatcher matcher = new InstalmentAggregationMatcher();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(matcher, "windowDays", 30);
+        ReflectionTestUtils.setField(matcher, "maxSearchSteps", 1_000_000L);
+    }
+
+    @Test
+    void shouldAggregateInstalmentsAttributedByInvoiceNumberOrCustomer() {
+        // Given
+        Invoice invoice = invoice(1L, "INV201", "Sharma Traders", "30000");
+        List<Payment> payments = List.of(
+            payment(10L, "10000", INVOICE_DATE.plusDays(2), "Part payment INV201"),
+            payment(11L, "20000", INVOICE_DATE.plusDays(9), "SHARMA second instalment"),
+            payment(12L, "20000", INVOICE_DATE.plusDays(5), "Unrelated transfer"));
+
+        // When
+        List<InstalmentAggregationMatcher.InstalmentAggregation> aggregations =
+            matcher.findAggregations(payments, List.of(invoice));
+
+        // Then - the unattributed payment of the right amount is never considered
+        assertThat(aggregations).singleElement().satisfies(aggregation -> {
+            assertThat(aggregation.invoice()).isSameAs(invoice);
+            assertThat(aggregation.payments()).extracting(Payment::getId).containsExactly(10L, 11L);
+        });
+    }
+
+    @Test
+    void shouldOnlyConsiderPaymentsWithinTheWindow() {
+        // Given
+        Invoice invoice = invoice(1L, "INV202", "Kumar Stores", "30000");
+        List<Payment> payments = List.of(
+            payment(20L, "10000", INVOICE_DATE.minusDays(1), "INV202 advance"),
+            payment(21L, "20000", INVOICE_DATE.plusDays(30), "INV202 balance"),
+            payment(22L, "10000", INVOICE_DATE.plusDays(31), "INV202 late"));
+
+        // When
+        List<InstalmentAggregationMatcher.InstalmentAggregation> aggregations =
+            matcher.findAggregations(payments, List.of(invoice));
+
+        // Then
+        assertThat(aggregations).isEmpty();
+    }
+
+    @Test
+    void shouldNotAttributeOnePaymentToTwoInvoices() {
+        // Given
+        Invoice first = invoice(1L, "INV203", "Gupta Agencies", "15000");
+        Invoice second = invoice(2L, "INV204", "Gupta Agencies", "15000");
+        List<Payment> payments = List.of(
+            payment(30L, "5000", INVOICE_DATE.plusDays(1), "Gupta"),
+            payment(31L, "10000", INVOICE_DATE.plusDays(2), "Gupta"),
+            payment(32L, "5000", INVOICE_DATE.plusDays(3), "Gupta"));
+
+        // When
+        List<InstalmentAggregationMatcher.InstalmentAggregation> aggregations =
+            matcher.findAggregations(payments, List.of(first, second));
+
+        // Then - what is left after the first invoice cannot cover the second
+        assertThat(aggregations).singleElement().satisfies(aggregation ->
+            assertThat(aggregation.payments()).hasSize(2));
+    }
+
+    @Test
+    void shouldStopSearchingOnceTheRunBudgetIsSpent() {
+        // Given
+        ReflectionTestUtils.setField(matcher, "maxSearchSteps", 1L);
+        Invoice invoice = invoice(1L, "INV205", "Patel Mart", "30000");
+        List<Payment> payments = List.of(
+            payment(40L, "10000", INVOICE_DATE.plusDays(1), "Patel"),
+            payment(41L, "20000", INVOICE_DATE.plusDays(2), "Patel"),
+            payment(42L, "10000", INVOICE_DATE.plusDays(3), "Patel"),
+            payment(43L, "20000", INVOICE_DATE.plusDays(4), "Patel"));
+
+        // When
+        List<InstalmentAggregationMatcher.InstalmentAggregation> aggregations =
+            matcher.findAggregations(payments, List.of(invoice, invoice(2L, "INV206", "Patel Mart", "30000")));
+
+        // Then - the first search spends the budget and still completes, the second never starts
+        assertThat(aggregations).hasSize(1);
+    }
+
+    private static Invoice invoice(Long id, String number, String customer, String pending) {
+        Invoice invoice = new Invoice();
+        invoice.setId(id);
+        invoice.setInvoiceNumber(number);
+        invoice.setCustomerName(customer);
+        invoice.setTotalAmount(Money.of(pending));
+        invoice.setPendingAmount(Money.of(pending));
+        invoice.setInvoiceDate(INVOICE_DATE);
+        return invoice;
+    }
+
+    private static Payment payment(Long id, String amount, LocalDate date, String remark) {
+        Payment payment = new Payment();
+        payment.setId(id);
+        payment.setAmount(Money.of(amount));
+        payment.setPaymentDate(date);
+        payment.setRemark(remark);
+        return payment;
+    }
+}
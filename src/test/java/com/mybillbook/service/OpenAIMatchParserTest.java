@@ -0,0 +1,89 @@
+package com.mybillbook.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mybillbook.dto.OpenAIMatchResponse;
+import com.mybillbook.exception.OpenAIServiceException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OpenAIMatchParserTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldReadMatchesFromStructuredArguments() throws Exception {
+        // Given
+        String arguments = """
+            {"matches": [{"invoice_number": "INV101", "confidence": 0.92, "reason": "Remark mentions INV101"}]}
+            """;
+
+        // When
+        List<OpenAIMatchResponse.Match> matches =
+            OpenAIMatchParser.readMatches(objectMapper.readTree(arguments).traverse(objectMapper));
+
+        // Then
+        assertThat(matches).singleElement().satisfies(match -> {
+            assertThat(match.getInvoiceNumber()).isEqualTo("INV101");
+            assertThat(match.getConfidence()).isEqualByComparingTo("0.92");
+            assertThat(match.getReason()).isEqualTo("Remark mentions INV101");
+        });
+    }
+
+    @Test
+    void shouldSalvageCompleteMatchesFromTruncatedOutput() {
+        // Given - cut off at the token limit in the middle of the third entry
+        String text = """
+            ```json
+            {"matches": [
+              {"invoice_number": "INV101", "confidence": 0.92, "reason": "Exact amount"},
+              {"invoice_number": "INV102", "confidence": 0.71, "reason": "Customer name"},
+              {"invoice_number": "INV1""";
+
+        // When
+        List<OpenAIMatchResponse.Match> matches = OpenAIMatchParser.readMatches(objectMapper, text);
+
+        // Then
+        assertThat(matches).extracting(OpenAIMatchResponse.Match::getInvoiceNumber).containsExactly("INV101", "INV102");
+    }
+
+    @Test
+    void shouldSkipOnlyTheMalformedEntries() {
+        // Given
+        String text = """
+            {"note": {"ignored": [1, 2]}, "matches": [
+              {"invoice_number": "INV101", "confidence": "high", "reason": "Not a number"},
+              {"confidence": 0.80, "reason": "No invoice number"},
+              {"invoice_number": "INV103", "confidence": 0.65, "reason": "Amount matches"}
+            ]}
+            """;
+
+        // When
+        List<OpenAIMatchResponse.Match> matches = OpenAIMatchParser.readMatches(objectMapper, text);
+
+        // Then
+        assertThat(matches).extracting(OpenAIMatchResponse.Match::getInvoiceNumber).containsExactly("INV103");
+    }
+
+    @Test
+    void shouldRejectAnswersWithoutUsableJson() {
+        // Then - none of these may pass for "no match", the last one is cut off before its first entry
+        assertThatThrownBy(() -> OpenAIMatchParser.readMatches(objectMapper, "I could not find a match."))
+            .isInstanceOf(OpenAIServiceException.class);
+        assertThatThrownBy(() -> OpenAIMatchParser.readMatches(objectMapper, (String) null))
+            .isInstanceOf(OpenAIServiceException.class);
+        assertThatThrownBy(() -> OpenAIMatchParser.readMatches(objectMapper, "{\"result\": \"none\"}"))
+            .isInstanceOf(OpenAIServiceException.class);
+        assertThatThrownBy(() -> OpenAIMatchParser.readMatches(objectMapper, "{\"matches\": [{\"invoice_num"))
+            .isInstanceOf(OpenAIServiceException.class);
+    }
+
+    @Test
+    void shouldAcceptAnAnswerWithNoMatches() {
+        // Then
+        assertThat(OpenAIMatchParser.readMatches(objectMapper, "{\"matches\": []}")).isEmpty();
+    }
+}
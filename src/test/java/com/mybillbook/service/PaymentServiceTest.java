@@ -0,0 +1,102 @@
+package com.mybillbook.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mybillbook.dto.UploadResult;
+import com.mybillbook.enums.PaymentMode;
+import com.mybillbook.model.Money;
+import com.mybillbook.model.Payment;
+import com.mybillbook.model.User;
+import com.mybillbook.repository.PaymentRepository;
+import com.mybillbook.repository.UploadBatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentServiceTest {
+
+    private PaymentRepository paymentRepository;
+    private PaymentService paymentService;
+    private final User user = new User();
+
+    @BeforeEach
+    void setUp() {
+        paymentRepository = mock(PaymentRepository.class);
+        when(paymentRepository.insertIfAbsent(any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(1);
+        UploadBatchRepository uploadBatchRepository = mock(UploadBatchRepository.class);
+        when(uploadBatchRepository.insertIfAbsent(any(), any(), any(), anyInt(), anyInt(), anyInt(), any())).thenReturn(1);
+        UploadBatchService uploadBatchService = new UploadBatchService(uploadBatchRepository,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), new ObjectMapper());
+        ReflectionTestUtils.setField(uploadBatchService, "commitChunkSize", 500);
+        paymentService = new PaymentService(paymentRepository, mock(ReconciliationQueueService.class),
+            mock(DataVersionService.class), uploadBatchService);
+        user.setId(1L);
+    }
+
+    @Test
+    void shouldKeepIdenticalPaymentsFromSeparateUploads() {
+        // When - the same rent payment shows up in this month's and next month's statement export
+        UploadResult first = paymentService.uploadPayments(List.of(rent()), user, null);
+        UploadResult second = paymentService.uploadPayments(List.of(rent()), user, null);
+
+        // Then - without a key nothing is hashed, so nothing can conflict
+        assertThat(first.uploaded()).isEqualTo(1);
+        assertThat(second.uploaded()).isEqualTo(1);
+        verify(paymentRepository, times(2)).insertIfAbsent(eq(1L), any(), any(), any(), any(), any(), isNull(), any());
+    }
+
+    @Test
+    void shouldHashRowsIndependentlyOfTheIdempotencyKey() {
+        // When - a statement is sent under one key, then resent under another after a failure
+        paymentService.uploadPayments(List.of(rent(), rent()), user, "statement-march");
+        paymentService.uploadPayments(List.of(rent()), user, "statement-march-retry");
+
+        // Then - repeats within an upload stay distinct, and the resent row hashes as before
+        ArgumentCaptor<String> hashes = ArgumentCaptor.forClass(String.class);
+        verify(paymentRepository, times(3)).insertIfAbsent(eq(1L), any(), any(), any(), any(), any(), hashes.capture(), any());
+        List<String> march = hashes.getAllValues().subList(0, 2);
+        String retry = hashes.getAllValues().get(2);
+        assertThat(march).doesNotHaveDuplicates();
+        assertThat(retry).isEqualTo(march.get(0));
+    }
+
+    @Test
+    void shouldSkipRowsTheUserAlreadyHas() {
+        // Given - the first row was stored by an earlier attempt
+        when(paymentRepository.insertIfAbsent(any(), any(), any(), any(), any(), any(), any(), any()))
+            .thenReturn(0)
+            .thenReturn(1);
+
+        // When
+        UploadResult result = paymentService.uploadPayments(List.of(rent(), rent()), user, "statement-march");
+
+        // Then
+        assertThat(result.uploaded()).isEqualTo(1);
+        assertThat(result.skipped()).isEqualTo(1);
+        assertThat(result.failed()).isZero();
+    }
+
+    private static Payment rent() {
+        Payment payment = new Payment();
+        payment.setAmount(Money.of("25000"));
+        payment.setPaymentDate(LocalDate.of(2024, 3, 1));
+        payment.setPaymentMode(PaymentMode.UPI);
+        payment.setRemark("Shop rent");
+        return payment;
+    }
+}
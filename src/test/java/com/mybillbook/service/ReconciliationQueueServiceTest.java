@@ -0,0 +1,127 @@
+package com.mybillbook.service;
+
+import com.mybillbook.enums.ReconciliationJobStatus;
+import com.mybillbook.model.ReconciliationJob;
+import com.mybillbook.model.User;
+import com.mybillbook.repository.ReconciliationJobRepository;
+import com.mybillbook.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs enqueue from several threads at once against the partial unique indexes of V8, which only
+ * PostgreSQL enforces. Each call commits on its own, so the test itself is not transactional.
+ * Skipped when Docker is not available.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import(ReconciliationQueueService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReconciliationQueueServiceTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", POSTGRES::getDriverClassName);
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("reconciliation.queue.enabled", () -> "true");
+    }
+
+    @Autowired
+    private ReconciliationQueueService queueService;
+
+    @Autowired
+    private ReconciliationJobRepository jobRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setMobileNumber("9876543210");
+        user.setName("Ramesh Kumar");
+        userId = userRepository.save(user).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        jobRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void shouldQueueOneJobForConcurrentEnqueues() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            // Given
+            jobRepository.deleteAll();
+            CyclicBarrier start = new CyclicBarrier(2);
+
+            // When
+            CompletableFuture<?> first = CompletableFuture.runAsync(() -> enqueueAfter(start), executor);
+            CompletableFuture<?> second = CompletableFuture.runAsync(() -> enqueueAfter(start), executor);
+            CompletableFuture.allOf(first, second).get();
+
+            // Then
+            assertThat(jobRepository.findAll()).singleElement()
+                .extracting(ReconciliationJob::getStatus).isEqualTo(ReconciliationJobStatus.QUEUED);
+        }
+    }
+
+    @Test
+    void shouldQueueBehindARunningJob() {
+        // Given
+        queueService.enqueue(userId);
+        assertThat(queueService.claim(10)).hasSize(1);
+
+        // When
+        queueService.enqueue(userId);
+        queueService.enqueue(userId);
+
+        // Then - uploads made during the run are covered by exactly one follow-up job
+        assertThat(jobRepository.findAll()).extracting(ReconciliationJob::getStatus)
+            .containsExactlyInAnyOrder(ReconciliationJobStatus.RUNNING, ReconciliationJobStatus.QUEUED);
+        assertThat(queueService.claim(10)).isEmpty();
+    }
+
+    private void enqueueAfter(CyclicBarrier start) {
+        try {
+            start.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        queueService.enqueue(userId);
+    }
+}
@@ -0,0 +1,179 @@
+package com.mybillbook.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mybillbook.dto.OpenAIMatchResponse;
+import com.mybillbook.enums.InvoiceStatus;
+import com.mybillbook.enums.PaymentStatus;
+import com.mybillbook.model.Invoice;
+import com.mybillbook.model.Money;
+import com.mybillbook.model.Payment;
+import com.mybillbook.model.ReconciliationWatermark;
+import com.mybillbook.model.User;
+import com.mybillbook.repository.InvoiceRepository;
+import com.mybillbook.repository.PaymentRepository;
+import com.mybillbook.repository.ReconciliationSuggestionRepository;
+import com.mybillbook.repository.ReconciliationWatermarkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import com.theokanning.openai.completion.chat.ChatCompletionChoice;
+import com.theokanning.openai.completion.chat.ChatCompletionResult;
+import com.theokanning.openai.completion.chat.ChatMessage;
+import com.theokanning.openai.completion.chat.ChatMessageRole;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReconciliationServiceTest {
+
+    private static final Long USER_ID = 1L;
+    private static final LocalDateTime INVOICES_UPDATED_AT = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+    private OpenAIService openAIService;
+    private PaymentRepository paymentRepository;
+    private InvoiceRepository invoiceRepository;
+    private ReconciliationWatermarkRepository watermarkRepository;
+    private ReconciliationService reconciliationService;
+
+    private final Invoice invoice = invoice();
+    private final Payment failing = payment(5L);
+    private final Payment answered = payment(6L);
+
+    @BeforeEach
+    void setUp() {
+        openAIService = mock(OpenAIService.class);
+        paymentRepository = mock(PaymentRepository.class);
+        invoiceRepository = mock(InvoiceRepository.class);
+        watermarkRepository = mock(ReconciliationWatermarkRepository.class);
+        reconciliationService = reconciliationService(openAIService);
+
+        ReconciliationWatermark watermark = new ReconciliationWatermark(USER_ID, 4L, INVOICES_UPDATED_AT, null);
+        when(watermarkRepository.findById(USER_ID)).thenReturn(Optional.of(watermark));
+        when(paymentRepository.findMaxIdByUserId(USER_ID)).thenReturn(6L);
+        when(invoiceRepository.findMaxUpdatedAtByUserId(USER_ID)).thenReturn(INVOICES_UPDATED_AT);
+        when(invoiceRepository.findByUserIdAndStatusIn(eq(USER_ID), anyList())).thenReturn(List.of(invoice));
+        when(openAIService.findMatchingInvoices(eq(answered), anyList())).thenReturn(new OpenAIMatchResponse(List.of()));
+    }
+
+    @Test
+    void shouldRetryAFailedPaymentOnTheNextIncrementalRun() {
+        // Given
+        when(paymentRepository.findByUserIdAndStatusAndIdGreaterThan(USER_ID, PaymentStatus.UNRECONCILED, 4L))
+            .thenReturn(List.of(failing, answered));
+        when(openAIService.findMatchingInvoices(eq(failing), anyList()))
+            .thenThrow(new IllegalStateException("AI timed out"))
+            .thenReturn(new OpenAIMatchResponse(List.of(
+                new OpenAIMatchResponse.Match("INV301", new BigDecimal("0.90"), "Remark mentions INV301"))));
+
+        // When
+        int firstRun = reconciliationService.runReconciliation(USER_ID, true);
+
+        // Then - the watermark stops just below the failed payment
+        assertThat(firstRun).isZero();
+        verify(watermarkRepository).upsert(USER_ID, 4L, INVOICES_UPDATED_AT);
+
+        // When - the stored watermark is unchanged, so the failed payment is new again
+        int secondRun = reconciliationService.runReconciliation(USER_ID, true);
+
+        // Then
+        assertThat(secondRun).isEqualTo(1);
+        verify(openAIService, times(2)).findMatchingInvoices(eq(failing), anyList());
+        verify(watermarkRepository).upsert(USER_ID, 6L, INVOICES_UPDATED_AT);
+    }
+
+    @Test
+    void shouldHoldTheInvoiceMarkWhenAnOlderPaymentFails() {
+        // Given - an invoice changed since the last run is offered to an already seen payment
+        LocalDateTime changedAt = INVOICES_UPDATED_AT.plusHours(1);
+        when(invoiceRepository.findMaxUpdatedAtByUserId(USER_ID)).thenReturn(changedAt);
+        when(invoiceRepository.findByUserIdAndStatusInAndUpdatedAtAfter(eq(USER_ID), anyList(), eq(INVOICES_UPDATED_AT)))
+            .thenReturn(List.of(invoice));
+        Payment older = payment(3L);
+        when(paymentRepository.findByUserIdAndStatusAndIdLessThanEqual(USER_ID, PaymentStatus.UNRECONCILED, 4L))
+            .thenReturn(List.of(older));
+        when(openAIService.findMatchingInvoices(eq(older), any())).thenThrow(new IllegalStateException("AI timed out"));
+
+        // When
+        reconciliationService.runReconciliation(USER_ID, true);
+
+        // Then - payments still advance, the changed invoice is offered again next time
+        verify(watermarkRepository).upsert(USER_ID, 6L, INVOICES_UPDATED_AT);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldHoldTheWatermarkWhenTheAnswerIsMalformed() {
+        // Given - the model's answer is cut off before its first match
+        ChatCompletionChoice choice = new ChatCompletionChoice();
+        choice.setMessage(new ChatMessage(ChatMessageRole.ASSISTANT.value(), "{\"matches\": [{\"invoice_nu"));
+        choice.setFinishReason("length");
+        ChatCompletionResult result = new ChatCompletionResult();
+        result.setChoices(List.of(choice));
+        com.theokanning.openai.service.OpenAiService client = mock(com.theokanning.openai.service.OpenAiService.class);
+        when(client.createChatCompletion(any())).thenReturn(result);
+        AiRequestScheduler scheduler = mock(AiRequestScheduler.class);
+        when(scheduler.execute(any(), anyLong(), any())).thenAnswer(call -> ((Supplier<Object>) call.getArgument(2)).get());
+
+        OpenAIService realOpenAIService = new OpenAIService(client, new ObjectMapper(), scheduler);
+        ReflectionTestUtils.setField(realOpenAIService, "model", "gpt-4o-mini");
+        ReflectionTestUtils.setField(realOpenAIService, "maxTokens", 1000);
+        ReflectionTestUtils.setField(realOpenAIService, "temperature", 0.3);
+        reconciliationService = reconciliationService(realOpenAIService);
+        when(paymentRepository.findByUserIdAndStatusAndIdGreaterThan(USER_ID, PaymentStatus.UNRECONCILED, 4L))
+            .thenReturn(List.of(failing));
+
+        // When
+        int suggestions = reconciliationService.runReconciliation(USER_ID, true);
+
+        // Then - the payment counts as failed, not as matched to nothing, and is tried again next run
+        assertThat(suggestions).isZero();
+        verify(client).createChatCompletion(any());
+        verify(watermarkRepository).upsert(USER_ID, 4L, INVOICES_UPDATED_AT);
+    }
+
+    private ReconciliationService reconciliationService(OpenAIService openAIService) {
+        return new ReconciliationService(openAIService, mock(SplitAllocationMatcher.class),
+            mock(InstalmentAggregationMatcher.class), paymentRepository, invoiceRepository,
+            mock(ReconciliationSuggestionRepository.class), watermarkRepository, mock(DataVersionService.class),
+            new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    private static Invoice invoice() {
+        Invoice invoice = new Invoice();
+        invoice.setId(30L);
+        invoice.setInvoiceNumber("INV301");
+        invoice.setCustomerName("Verma Textiles");
+        invoice.setTotalAmount(Money.of("12000"));
+        invoice.setPendingAmount(Money.of("12000"));
+        invoice.setStatus(InvoiceStatus.UNPAID);
+        invoice.setInvoiceDate(LocalDate.of(2024, 2, 20));
+        return invoice;
+    }
+
+    private static Payment payment(Long id) {
+        Payment payment = new Payment();
+        payment.setId(id);
+        payment.setUser(new User(USER_ID, "9876543210", "Ramesh Kumar", null, null, 0L));
+        payment.setAmount(Money.of("12000"));
+        payment.setPaymentDate(LocalDate.of(2024, 3, 2));
+        payment.setRemark("NEFT transfer");
+        payment.setStatus(PaymentStatus.UNRECONCILED);
+        return payment;
+    }
+}
@@ -0,0 +1,110 @@
+package com.mybillbook.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SubsetSumSolverTest {
+
+    @Test
+    void shouldFindCombinationSummingToTarget() {
+        // Given
+        long[] amounts = {500000, 250000, 120000, 130000};
+
+        // When
+        List<int[]> subsets = SubsetSumSolver.findSubsets(amounts, 750000, 2, 3);
+
+        // Then
+        assertThat(subsets).isNotEmpty();
+        assertThat(subsets).allSatisfy(indices ->
+            assertThat(Arrays.stream(indices).mapToLong(i -> amounts[i]).sum()).isEqualTo(750000));
+        assertThat(subsets.get(0)).hasSize(2);
+    }
+
+    @Test
+    void shouldIgnoreCombinationsBelowMinimumSize() {
+        // Given
+        long[] amounts = {100000, 40000, 70000};
+
+        // When
+        List<int[]> subsets = SubsetSumSolver.findSubsets(amounts, 100000, 2, 3);
+
+        // Then
+        assertThat(subsets).isEmpty();
+    }
+
+    @Test
+    void shouldLimitNumberOfResults() {
+        // Given
+        long[] amounts = {100, 100, 100, 100, 100, 100};
+
+        // When
+        List<int[]> subsets = SubsetSumSolver.findSubsets(amounts, 200, 2, 3);
+
+        // Then
+        assertThat(subsets).hasSize(3);
+    }
+
+    @Test
+    void shouldRejectTooManyCandidates() {
+        assertThatThrownBy(() -> SubsetSumSolver.findSubsets(new long[SubsetSumSolver.MAX_CANDIDATES + 1], 1, 2, 3))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldFindInstalmentsAmongManyPayments() {
+        // Given
+        long[] amounts = new long[300];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = 10000 + i * 37;
+        }
+        long target = amounts[12] + amounts[150] + amounts[299];
+
+        // When
+        int[] indices = SubsetSumSolver.findSubset(amounts, target, 2, unlimited());
+
+        // Then
+        assertThat(indices).isNotNull();
+        assertThat(indices.length).isGreaterThanOrEqualTo(2);
+        assertThat(Arrays.stream(indices).mapToLong(i -> amounts[i]).sum()).isEqualTo(target);
+    }
+
+    @Test
+    void shouldNotReturnSingleExactAmountAsInstalments() {
+        // Given
+        long[] amounts = {50000, 20000, 15000};
+
+        // When
+        int[] indices = SubsetSumSolver.findSubsetBounded(amounts, 50000, 2, 1000, unlimited());
+
+        // Then
+        assertThat(indices).isNull();
+    }
+
+    @Test
+    void shouldGiveUpOnceTheBudgetIsSpent() {
+        // Given
+        long[] amounts = new long[300];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = 10000 + i * 37;
+        }
+        long target = amounts[12] + amounts[150] + amounts[299];
+        SubsetSumSolver.SearchBudget budget = new SubsetSumSolver.SearchBudget(1000);
+
+        // When
+        int[] indices = SubsetSumSolver.findSubset(amounts, target, 2, budget);
+
+        // Then - the next search sharing the budget does not start at all
+        assertThat(indices).isNull();
+        assertThat(budget.isExhausted()).isTrue();
+        assertThat(SubsetSumSolver.findSubset(new long[]{100, 200}, 300, 2, budget)).isNull();
+    }
+
+    private static SubsetSumSolver.SearchBudget unlimited() {
+        return new SubsetSumSolver.SearchBudget(Long.MAX_VALUE);
+    }
+}
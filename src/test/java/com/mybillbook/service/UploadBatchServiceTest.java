@@ -0,0 +1,136 @@
+package com.mybillbook.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mybillbook.dto.UploadResult;
+import com.mybillbook.enums.UploadType;
+import com.mybillbook.exception.InvalidRequestException;
+import com.mybillbook.model.UploadBatch;
+import com.mybillbook.repository.UploadBatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UploadBatchServiceTest {
+
+    private UploadBatchRepository uploadBatchRepository;
+    private PlatformTransactionManager transactionManager;
+    private UploadBatchService uploadBatchService;
+
+    @BeforeEach
+    void setUp() {
+        uploadBatchRepository = mock(UploadBatchRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        uploadBatchService = new UploadBatchService(uploadBatchRepository, new TransactionTemplate(transactionManager),
+            new ObjectMapper());
+        ReflectionTestUtils.setField(uploadBatchService, "commitChunkSize", 2);
+    }
+
+    @Test
+    void shouldReturnTheConcurrentWinnersResultOnConflict() {
+        // Given - the other request records the same batch while this one is uploading
+        when(uploadBatchRepository.findByUserIdAndUploadTypeAndBatchKey(1L, UploadType.PAYMENTS, "batch-7"))
+            .thenReturn(Optional.empty())
+            .thenReturn(Optional.of(batch(3, "[{\"row\":2,\"message\":\"Payment date is required\"}]")));
+        when(uploadBatchRepository.insertIfAbsent(eq(1L), eq("PAYMENTS"), eq("batch-7"), anyInt(), anyInt(), anyInt(), any()))
+            .thenReturn(0);
+
+        // When
+        UploadResult result = uploadBatchService.runOnce(1L, UploadType.PAYMENTS, "batch-7",
+            () -> new UploadResult(0, 3, 1, List.of(new UploadResult.RowError(2, "Payment date is required")), false));
+
+        // Then
+        assertThat(result.uploaded()).isEqualTo(3);
+        assertThat(result.replayed()).isTrue();
+        assertThat(result.errors()).containsExactly(new UploadResult.RowError(2, "Payment date is required"));
+    }
+
+    @Test
+    void shouldRecordTheResultOfANewBatch() {
+        // Given
+        when(uploadBatchRepository.findByUserIdAndUploadTypeAndBatchKey(1L, UploadType.INVOICES, "batch-8"))
+            .thenReturn(Optional.empty());
+        when(uploadBatchRepository.insertIfAbsent(eq(1L), eq("INVOICES"), eq("batch-8"), anyInt(), anyInt(), anyInt(), any()))
+            .thenReturn(1);
+
+        // When
+        UploadResult result = uploadBatchService.runOnce(1L, UploadType.INVOICES, "batch-8",
+            () -> new UploadResult(2, 0, 1, List.of(new UploadResult.RowError(3, "Invoice date is required")), false));
+
+        // Then
+        assertThat(result.replayed()).isFalse();
+        verify(uploadBatchRepository).insertIfAbsent(1L, "INVOICES", "batch-8", 2, 0, 1,
+            "[{\"row\":3,\"message\":\"Invoice date is required\"}]");
+    }
+
+    @Test
+    void shouldReplayTheRecordedRowErrors() {
+        // Given
+        when(uploadBatchRepository.findByUserIdAndUploadTypeAndBatchKey(1L, UploadType.INVOICES, "batch-9"))
+            .thenReturn(Optional.of(batch(1, "[{\"row\":2,\"message\":\"Invoice number INV-1 already exists\"}]")));
+
+        // When
+        UploadResult result = uploadBatchService.runOnce(1L, UploadType.INVOICES, "batch-9", () -> {
+            throw new AssertionError("A recorded batch must not be uploaded again");
+        });
+
+        // Then
+        assertThat(result.replayed()).isTrue();
+        assertThat(result.errors()).containsExactly(new UploadResult.RowError(2, "Invoice number INV-1 already exists"));
+    }
+
+    @Test
+    void shouldKeepTheChunksCommittedBeforeAFailure() {
+        // Given
+        List<List<Integer>> stored = new ArrayList<>();
+
+        // When - the third chunk fails
+        assertThatThrownBy(() -> uploadBatchService.insertInChunks(List.of(1, 2, 3, 4, 5), chunk -> {
+            if (chunk.contains(5)) {
+                throw new IllegalStateException("connection reset");
+            }
+            stored.add(chunk);
+            return chunk.size();
+        })).isInstanceOf(IllegalStateException.class);
+
+        // Then - each chunk had a transaction of its own, and only the failed one rolled back
+        assertThat(stored).containsExactly(List.of(1, 2), List.of(3, 4));
+        verify(transactionManager, times(3)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void shouldRejectInvalidKeysAsBadRequests() {
+        // Then
+        assertThatThrownBy(() -> uploadBatchService.runOnce(1L, UploadType.PAYMENTS, " ", () -> null))
+            .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> uploadBatchService.runOnce(1L, UploadType.PAYMENTS, "k".repeat(101), () -> null))
+            .isInstanceOf(InvalidRequestException.class);
+        verify(uploadBatchRepository, never()).findByUserIdAndUploadTypeAndBatchKey(any(), any(), any());
+    }
+
+    private static UploadBatch batch(int uploaded, String errors) {
+        UploadBatch batch = new UploadBatch();
+        batch.setUploaded(uploaded);
+        batch.setFailed(1);
+        batch.setErrors(errors);
+        return batch;
+    }
+}
@@ -0,0 +1,83 @@
+package com.mybillbook.service;
+
+import com.mybillbook.model.User;
+import com.mybillbook.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserCacheTest {
+
+    private UserRepository userRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private UserCache userCache;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        userCache = new UserCache(userRepository, meterRegistry,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(userCache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(userCache, "expireAfterWriteMinutes", 10L);
+        userCache.start();
+
+        user = new User();
+        user.setId(1L);
+        user.setMobileNumber("9876543210");
+        user.setName("Ramesh Kumar");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findByMobileNumber("9876543210")).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void shouldServeRepeatedLookupsFromCache() {
+        // When
+        userCache.findById(1L);
+        userCache.findById(1L);
+        Optional<User> byMobile = userCache.findByMobileNumber("9876543210");
+
+        // Then - the mobile lookup reuses the cached user as well
+        assertThat(byMobile).map(User::getName).contains("Ramesh Kumar");
+        verify(userRepository, times(1)).findById(1L);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "users.byId").tag("result", "hit")
+            .functionCounter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void shouldNotCacheMissingUsers() {
+        // Given
+        when(userRepository.findByMobileNumber("9000000000")).thenReturn(Optional.empty());
+
+        // When
+        userCache.findByMobileNumber("9000000000");
+        userCache.findByMobileNumber("9000000000");
+
+        // Then
+        verify(userRepository, times(2)).findByMobileNumber("9000000000");
+    }
+
+    @Test
+    void shouldHandOutCopiesOfCachedUsers() {
+        // Given
+        userCache.findById(1L).orElseThrow().setName("Changed");
+
+        // When
+        User cached = userCache.findById(1L).orElseThrow();
+
+        // Then
+        assertThat(cached.getName()).isEqualTo("Ramesh Kumar");
+    }
+}
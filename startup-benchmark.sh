@@ -0,0 +1,56 @@
+#!/bin/bash
+
+# Startup benchmark: plain executable jar vs. the fast-startup build (Spring AOT + CDS archive)
+#
+# Each run starts the application until its context is refreshed and then exits
+# (-Dspring.context.exit=onRefresh), which covers everything a cold instance does before it can
+# serve: JVM boot, class loading, bean creation, Hibernate and Spring MVC setup. Migrations are
+# skipped and Hibernate does not read JDBC metadata in this mode, so no database is needed.
+#
+# Usage: ./startup-benchmark.sh [runs]
+
+set -e
+
+RUNS="${1:-5}"
+WORK_DIR="target/startup"
+JAR="target/ai-reconciliation-1.0.0.jar"
+MAIN_CLASS="com.mybillbook.MybillbookApplication"
+START_ONLY="-Dspring.profiles.active=prod -Dspring.context.exit=onRefresh \
+  -Dspring.jpa.hibernate.ddl-auto=none \
+  -Dspring.jpa.properties.hibernate.temp.use_jdbc_metadata_defaults=false"
+
+echo "Building with -Pfast-startup..."
+mvn -B -q -Pfast-startup package -DskipTests
+
+# CDS needs a classpath of plain jars: unpack the fat jar and repackage the application classes
+rm -rf "$WORK_DIR"
+mkdir -p "$WORK_DIR/lib"
+(cd "$WORK_DIR" && jar -xf "../../$JAR" \
+  && jar -cf application.jar -C BOOT-INF/classes . \
+  && mv BOOT-INF/lib/* lib/ \
+  && rm -rf BOOT-INF META-INF org)
+
+echo "Training run to create the CDS archive..."
+(cd "$WORK_DIR" && java $START_ONLY -Dspring.aot.enabled=true -XX:ArchiveClassesAtExit=application.jsa \
+  -Xlog:cds=off -Xlog:cds+dynamic=off -cp "application.jar:lib/*" "$MAIN_CLASS" > training.log 2>&1)
+
+time_runs() {
+  local label="$1"
+  shift
+  local total=0
+  for ((i = 1; i <= RUNS; i++)); do
+    local start end
+    start=$(date +%s%N)
+    "$@" > /dev/null 2>&1
+    end=$(date +%s%N)
+    total=$((total + (end - start) / 1000000))
+  done
+  echo "$label: $((total / RUNS)) ms average over $RUNS runs"
+}
+
+echo ""
+time_runs "executable jar       " java $START_ONLY -jar "$JAR"
+time_runs "unpacked, AOT        " java $START_ONLY -Dspring.aot.enabled=true \
+  -cp "$WORK_DIR/application.jar:$WORK_DIR/lib/*" "$MAIN_CLASS"
+(cd "$WORK_DIR" && time_runs "unpacked, AOT + CDS  " java $START_ONLY -Dspring.aot.enabled=true \
+  -XX:SharedArchiveFile=application.jsa -Xlog:cds=off -cp "application.jar:lib/*" "$MAIN_CLASS")